@@ -0,0 +1,86 @@
+package starrocks;
+
+import org.apache.flink.types.Row;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 整批组装耗时：原先逐条转String、攒List再String.join并getBytes，对比直接流式写入批次缓冲区
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BatchAssemblyBenchmark {
+
+    @Param({"1000", "20000"})
+    public int batchSize;
+
+    @Param({"8", "25"})
+    public int arity;
+
+    private Row[] rows;
+
+    private CsvStreamLoadSerializer serializer;
+
+    private StreamLoadBuffer buffer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        rows = BenchmarkData.rows(batchSize, arity, BenchmarkData.FieldType.MIXED);
+        serializer =
+                new CsvStreamLoadSerializer(
+                        "\t", "\n", BenchmarkData.types(arity, BenchmarkData.FieldType.MIXED), arity);
+        buffer = new StreamLoadBuffer();
+    }
+
+    /** 原实现：每条记录转String后攒批，发送前String.join再编码 */
+    @Benchmark
+    public byte[] stringJoin() {
+        List<String> batch = new ArrayList<>(batchSize);
+        for (Row row : rows) {
+            StringJoiner joiner = new StringJoiner("\t");
+            for (int i = 0; i < row.getArity(); i++) {
+                joiner.add(String.valueOf(row.getField(i)));
+            }
+            batch.add(joiner.toString());
+        }
+        return String.join("\n", batch).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** 现实现：字段直接编码到复用的批次缓冲区 */
+    @Benchmark
+    public int streaming() throws IOException {
+        buffer.reset();
+        for (Row row : rows) {
+            serializer.beginRecord(buffer);
+            for (int i = 0; i < row.getArity(); i++) {
+                serializer.writeField(i, row.getField(i));
+            }
+            serializer.endRecord();
+            buffer.endRow();
+        }
+        serializer.endBatch(buffer);
+        return buffer.size();
+    }
+}
@@ -0,0 +1,121 @@
+package starrocks;
+
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.tuple.Tuple;
+import org.apache.flink.types.Row;
+
+import java.util.Random;
+
+/** 基准测试数据，固定随机种子保证每次运行的数据一致 */
+final class BenchmarkData {
+
+    /** 随机种子 */
+    static final long SEED = 20240601L;
+
+    /** 字段类型 */
+    enum FieldType {
+        STRING,
+        LONG,
+        DOUBLE,
+        MIXED
+    }
+
+    /** MIXED按字段位置循环使用的类型 */
+    private static final TypeInformation<?>[] MIXED_TYPES = {
+        BasicTypeInfo.STRING_TYPE_INFO,
+        BasicTypeInfo.LONG_TYPE_INFO,
+        BasicTypeInfo.DOUBLE_TYPE_INFO,
+        BasicTypeInfo.INT_TYPE_INFO
+    };
+
+    private BenchmarkData() {}
+
+    static String[] columns(int arity) {
+        String[] columns = new String[arity];
+        for (int i = 0; i < arity; i++) {
+            columns[i] = "c" + i;
+        }
+        return columns;
+    }
+
+    /** 与生成数据一致的字段类型 */
+    static TypeInformation<?>[] types(int arity, FieldType fieldType) {
+        TypeInformation<?>[] types = new TypeInformation<?>[arity];
+        for (int i = 0; i < arity; i++) {
+            switch (fieldType) {
+                case STRING:
+                    types[i] = BasicTypeInfo.STRING_TYPE_INFO;
+                    break;
+                case LONG:
+                    types[i] = BasicTypeInfo.LONG_TYPE_INFO;
+                    break;
+                case DOUBLE:
+                    types[i] = BasicTypeInfo.DOUBLE_TYPE_INFO;
+                    break;
+                default:
+                    types[i] = MIXED_TYPES[i % MIXED_TYPES.length];
+            }
+        }
+        return types;
+    }
+
+    static Row[] rows(int count, int arity, FieldType fieldType) {
+        Random random = new Random(SEED);
+        Row[] rows = new Row[count];
+        for (int i = 0; i < count; i++) {
+            Row row = new Row(arity);
+            for (int j = 0; j < arity; j++) {
+                row.setField(j, field(random, fieldType, j));
+            }
+            rows[i] = row;
+        }
+        return rows;
+    }
+
+    static Tuple[] tuples(int count, int arity, FieldType fieldType) {
+        Random random = new Random(SEED);
+        Tuple[] tuples = new Tuple[count];
+        for (int i = 0; i < count; i++) {
+            Tuple tuple = Tuple.newInstance(arity);
+            for (int j = 0; j < arity; j++) {
+                tuple.setField(field(random, fieldType, j), j);
+            }
+            tuples[i] = tuple;
+        }
+        return tuples;
+    }
+
+    private static Object field(Random random, FieldType fieldType, int pos) {
+        switch (fieldType) {
+            case STRING:
+                return string(random);
+            case LONG:
+                return random.nextLong();
+            case DOUBLE:
+                return random.nextDouble() * 1_000_000D;
+            default:
+                switch (pos % 4) {
+                    case 0:
+                        return string(random);
+                    case 1:
+                        return random.nextLong();
+                    case 2:
+                        return random.nextDouble() * 1_000_000D;
+                    default:
+                        return random.nextInt(1000) == 0 ? null : random.nextInt();
+                }
+        }
+    }
+
+    /** 含少量中文的变长字符串，覆盖多字节编码路径 */
+    private static String string(Random random) {
+        int length = 4 + random.nextInt(28);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            char c = random.nextInt(10) == 0 ? (char) ('一' + random.nextInt(512)) : (char) ('a' + random.nextInt(26));
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
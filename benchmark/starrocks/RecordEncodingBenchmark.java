@@ -0,0 +1,101 @@
+package starrocks;
+
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.tuple.Tuple;
+import org.apache.flink.types.Row;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Row和Tuple记录按不同字段数、字段类型和格式编码到批次缓冲区的吞吐 */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordEncodingBenchmark {
+
+    /** 每次调用编码的记录数 */
+    private static final int RECORDS = 1000;
+
+    /** Tuple最多25个字段 */
+    @Param({"4", "16", "25"})
+    public int arity;
+
+    @Param({"STRING", "LONG", "DOUBLE", "MIXED"})
+    public BenchmarkData.FieldType fieldType;
+
+    @Param({"CSV", "JSON"})
+    public StarRocksFormat format;
+
+    /** 是否按列类型生成写入器，否则按运行时类型分派 */
+    @Param({"true", "false"})
+    public boolean typed;
+
+    private Row[] rows;
+
+    private Tuple[] tuples;
+
+    private StreamLoadSerializer serializer;
+
+    private StreamLoadBuffer buffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        rows = BenchmarkData.rows(RECORDS, arity, fieldType);
+        tuples = BenchmarkData.tuples(RECORDS, arity, fieldType);
+        TypeInformation<?>[] fieldTypes = typed ? BenchmarkData.types(arity, fieldType) : null;
+        serializer =
+                format == StarRocksFormat.JSON
+                        ? new JsonStreamLoadSerializer(BenchmarkData.columns(arity), fieldTypes)
+                        : new CsvStreamLoadSerializer("\t", "\n", fieldTypes, arity);
+        buffer = new StreamLoadBuffer();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int encodeRow() throws IOException {
+        buffer.reset();
+        for (Row row : rows) {
+            serializer.beginRecord(buffer);
+            for (int i = 0; i < row.getArity(); i++) {
+                serializer.writeField(i, row.getField(i));
+            }
+            serializer.endRecord();
+            buffer.endRow();
+        }
+        serializer.endBatch(buffer);
+        return buffer.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int encodeTuple() throws IOException {
+        buffer.reset();
+        for (Tuple tuple : tuples) {
+            serializer.beginRecord(buffer);
+            for (int i = 0; i < tuple.getArity(); i++) {
+                serializer.writeField(i, tuple.getField(i));
+            }
+            serializer.endRecord();
+            buffer.endRow();
+        }
+        serializer.endBatch(buffer);
+        return buffer.size();
+    }
+}
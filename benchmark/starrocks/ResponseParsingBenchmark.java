@@ -0,0 +1,87 @@
+package starrocks;
+
+import com.socialtouch.martech.mbasedataprocess.util.JsonUtil;
+import org.apache.http.entity.ByteArrayEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/** Stream Load响应解析耗时：JsonUtil先读成String再解析，StreamLoadResponseReader直接解析响应流 */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseParsingBenchmark {
+
+    /** StarRocks成功导入时的典型响应 */
+    private static final String SUCCESS_RESPONSE =
+            "{\n"
+                    + "    \"TxnId\": 1003,\n"
+                    + "    \"Label\": \"3fa1c2b0_0_42\",\n"
+                    + "    \"Status\": \"Success\",\n"
+                    + "    \"Message\": \"OK\",\n"
+                    + "    \"NumberTotalRows\": 20000,\n"
+                    + "    \"NumberLoadedRows\": 20000,\n"
+                    + "    \"NumberFilteredRows\": 0,\n"
+                    + "    \"NumberUnselectedRows\": 0,\n"
+                    + "    \"LoadBytes\": 4718592,\n"
+                    + "    \"LoadTimeMs\": 1218,\n"
+                    + "    \"BeginTxnTimeMs\": 3,\n"
+                    + "    \"StreamLoadPlanTimeMs\": 9,\n"
+                    + "    \"ReadDataTimeMs\": 301,\n"
+                    + "    \"WriteDataTimeMs\": 850,\n"
+                    + "    \"CommitAndPublishTimeMs\": 52\n"
+                    + "}";
+
+    /** 导入失败时带ErrorURL的响应 */
+    private static final String FAIL_RESPONSE =
+            "{\n"
+                    + "    \"TxnId\": 1004,\n"
+                    + "    \"Label\": \"3fa1c2b0_0_43\",\n"
+                    + "    \"Status\": \"Fail\",\n"
+                    + "    \"Message\": \"too many filtered rows\",\n"
+                    + "    \"NumberTotalRows\": 20000,\n"
+                    + "    \"NumberLoadedRows\": 0,\n"
+                    + "    \"NumberFilteredRows\": 12,\n"
+                    + "    \"NumberUnselectedRows\": 0,\n"
+                    + "    \"LoadBytes\": 4718592,\n"
+                    + "    \"LoadTimeMs\": 512,\n"
+                    + "    \"ErrorURL\": \"http://127.0.0.1:8040/api/_load_error_log?file=error_log_3fa1c2b0\"\n"
+                    + "}";
+
+    private static final byte[] SUCCESS_BYTES = SUCCESS_RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] FAIL_BYTES = FAIL_RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public StreamLoadResult parseSuccess() {
+        return JsonUtil.string2Obj(SUCCESS_RESPONSE, StreamLoadResult.class);
+    }
+
+    @Benchmark
+    public StreamLoadResult parseFailure() {
+        return JsonUtil.string2Obj(FAIL_RESPONSE, StreamLoadResult.class);
+    }
+
+    @Benchmark
+    public StreamLoadResult readSuccess() throws IOException {
+        return StreamLoadResponseReader.readResult(200, new ByteArrayEntity(SUCCESS_BYTES));
+    }
+
+    @Benchmark
+    public StreamLoadResult readFailure() throws IOException {
+        return StreamLoadResponseReader.readResult(200, new ByteArrayEntity(FAIL_BYTES));
+    }
+}
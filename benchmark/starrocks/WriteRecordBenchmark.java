@@ -0,0 +1,113 @@
+package starrocks;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.TaskInfo;
+import org.apache.flink.api.common.functions.util.RuntimeUDFContext;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.types.Row;
+
+import starrocks.testing.MockStarRocksServer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/** 经本地模拟服务的端到端writeRecord吞吐，覆盖FE到BE的307重定向和可配置的服务端延迟 */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WriteRecordBenchmark {
+
+    /** 每次调用写入的记录数 */
+    private static final int RECORDS = 10000;
+
+    @Param({"true", "false"})
+    public boolean redirect;
+
+    @Param({"0", "20"})
+    public long latencyMs;
+
+    @Param({"false", "true"})
+    public boolean asyncFlush;
+
+    @Param({"NONE", "LZ4_FRAME"})
+    public StarRocksCompression compression;
+
+    private MockStarRocksServer server;
+
+    private Row[] rows;
+
+    private StarRocksRowOutputFormat outputFormat;
+
+    /** 每轮迭代使用不同的label前缀 */
+    private int iteration;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        server = new MockStarRocksServer().setRedirect(redirect).setLatencyMs(latencyMs);
+        rows = BenchmarkData.rows(RECORDS, 16, BenchmarkData.FieldType.MIXED);
+    }
+
+    @Setup(Level.Iteration)
+    public void open() throws IOException {
+        outputFormat =
+                StarRocksRowOutputFormat.buildOutputFormat()
+                        .setUrl(server.getFrontendAddress())
+                        .setUsername("root")
+                        .setPassword("")
+                        .setDatabase("bench")
+                        .setTable("bench")
+                        .setColumns(BenchmarkData.columns(16))
+                        .setBatchInterval(5000)
+                        .setAsyncFlush(asyncFlush)
+                        .setCompression(compression)
+                        .setLabelPrefix("bench_" + System.nanoTime() + "_" + iteration++)
+                        .finish();
+        outputFormat.setRuntimeContext(
+                new RuntimeUDFContext(
+                        new TaskInfo("bench", 1, 0, 1, 0),
+                        WriteRecordBenchmark.class.getClassLoader(),
+                        new ExecutionConfig(),
+                        new HashMap<>(),
+                        new HashMap<>(),
+                        UnregisteredMetricsGroup.createOperatorMetricGroup()));
+        outputFormat.configure(null);
+        outputFormat.open(0, 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void writeRecord() throws IOException {
+        for (Row row : rows) {
+            outputFormat.writeRecord(row);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() throws IOException {
+        outputFormat.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.close();
+    }
+}
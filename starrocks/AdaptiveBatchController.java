@@ -0,0 +1,98 @@
+package starrocks;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 按StarRocks返回的LoadTimeMs和LoadBytes调整批次大小和并发导入数（AIMD）
+ *
+ * <p>单次导入耗时低于目标值时，批次行数和并发数线性增加；超过目标值或StarRocks出现压力（超时、too many versions等
+ * 临时错误）时，二者减半。由任务线程读取、发送线程更新，方法均为同步方法。
+ */
+class AdaptiveBatchController {
+
+    /** 日志log */
+    private static final Logger LOG = LoggerFactory.getLogger(AdaptiveBatchController.class);
+
+    /** 耗时低于目标值的该比例时才增加，避免在目标值附近反复震荡 */
+    private static final double INCREASE_THRESHOLD = 0.8D;
+
+    /** 目标单次导入耗时（毫秒） */
+    private final long targetLoadTimeMs;
+
+    /** 批次行数下限 */
+    private final int minBatchRows;
+
+    /** 批次行数上限 */
+    private final int maxBatchRows;
+
+    /** 并发导入数上限 */
+    private final int maxConcurrency;
+
+    /** 每次线性增加的行数 */
+    private final int rowsIncrement;
+
+    /** 当前批次行数 */
+    private int batchRows;
+
+    /** 当前并发导入数 */
+    private int concurrency;
+
+    /** 最近一次导入的平均每行字节数，仅用于日志 */
+    private long bytesPerRow;
+
+    AdaptiveBatchController(long targetLoadTimeMs, int minBatchRows, int maxBatchRows, int maxConcurrency) {
+        this.targetLoadTimeMs = targetLoadTimeMs;
+        this.minBatchRows = Math.min(minBatchRows, maxBatchRows);
+        this.maxBatchRows = maxBatchRows;
+        this.maxConcurrency = maxConcurrency;
+        this.rowsIncrement = Math.max(1, this.minBatchRows);
+        this.batchRows = maxBatchRows;
+        this.concurrency = maxConcurrency;
+    }
+
+    synchronized int getBatchRows() {
+        return batchRows;
+    }
+
+    synchronized int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * 导入成功后根据耗时调整
+     *
+     * @param loadTimeMs 导入耗时
+     * @param loadBytes 导入字节数
+     * @param rows 导入行数
+     */
+    synchronized void onSuccess(long loadTimeMs, long loadBytes, long rows) {
+        if (rows > 0) {
+            bytesPerRow = loadBytes / rows;
+        }
+
+        if (loadTimeMs > targetLoadTimeMs) {
+            decrease();
+            LOG.debug("Stream load took {}ms over target {}ms, {}", loadTimeMs, targetLoadTimeMs, this);
+        } else if (loadTimeMs < targetLoadTimeMs * INCREASE_THRESHOLD) {
+            batchRows = Math.min(maxBatchRows, batchRows + rowsIncrement);
+            concurrency = Math.min(maxConcurrency, concurrency + 1);
+        }
+    }
+
+    /** StarRocks出现压力时减半 */
+    synchronized void onPressure() {
+        decrease();
+        LOG.info("Stream load backs off under pressure, {}", this);
+    }
+
+    private void decrease() {
+        batchRows = Math.max(minBatchRows, batchRows / 2);
+        concurrency = Math.max(1, concurrency / 2);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("batchRows=%d concurrency=%d bytesPerRow=%d", batchRows, concurrency, bytesPerRow);
+    }
+}
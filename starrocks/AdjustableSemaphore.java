@@ -0,0 +1,79 @@
+package starrocks;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 许可总数可在运行时调整的信号量，用于动态调整在途批次数
+ *
+ * <p>许可总数减少后可用许可可能为负数，归还足够多的许可后才重新可用。除阻塞的acquire外，还可以通过acquireAsync排队等待许可，
+ * 不占用线程。
+ */
+class AdjustableSemaphore extends Semaphore {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 当前许可总数 */
+    private int maxPermits;
+
+    /** 通过acquireAsync等待许可的调用方，按到达顺序获得许可 */
+    private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+
+    AdjustableSemaphore(int permits) {
+        super(permits);
+        this.maxPermits = permits;
+    }
+
+    /**
+     * 调整许可总数，减少时已被占用的许可在归还后才生效
+     *
+     * @param permits
+     */
+    synchronized void setMaxPermits(int permits) {
+        int delta = permits - maxPermits;
+        if (delta > 0) {
+            release(delta);
+        } else if (delta < 0) {
+            reducePermits(-delta);
+        }
+        maxPermits = permits;
+    }
+
+    /**
+     * 异步获取一个许可，有可用许可时立即完成，否则在其他许可归还后完成
+     *
+     * @return 完成时调用方已持有一个许可，用完后需release
+     */
+    CompletableFuture<Void> acquireAsync() {
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        waiters.add(permit);
+        grantWaiters();
+        return permit;
+    }
+
+    @Override
+    public void release() {
+        super.release();
+        grantWaiters();
+    }
+
+    @Override
+    public void release(int permits) {
+        super.release(permits);
+        grantWaiters();
+    }
+
+    /** 把可用许可依次交给排队的调用方，入队和归还的线程都会调用，保证不会漏掉唤醒 */
+    private void grantWaiters() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            CompletableFuture<Void> waiter = waiters.poll();
+            if (waiter == null) {
+                super.release();
+                return;
+            }
+            waiter.complete(null);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package starrocks;
+
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+
+import org.apache.http.HttpRequest;
+
+import java.io.IOException;
+import java.time.ZoneId;
+
+/**
+ * 按分隔符文本写出记录
+ *
+ * <p>null写为\N，包含分隔符、引号或反斜杠的字符串用双引号包围并转义，需要StarRocks支持enclose和escape参数。
+ */
+class CsvStreamLoadSerializer implements StreamLoadSerializer {
+
+    /** 列分隔符 */
+    private final String columnSeperator;
+
+    /** 行分隔符 */
+    private final String lineSeperator;
+
+    /** 按列类型生成的写入器 */
+    private final StreamLoadFieldConverters.CsvConverter[] converters;
+
+    /** 超出列数的字段使用的通用写入器 */
+    private final StreamLoadFieldConverters.CsvConverter fallback;
+
+    /** 当前写入的缓冲区 */
+    private StreamLoadBuffer buffer;
+
+    /**
+     * CsvStreamLoadSerializer
+     *
+     * @param columnSeperator
+     * @param lineSeperator
+     * @param fieldTypes 输出列类型，为null时按运行时类型写入
+     * @param arity 输出列数
+     */
+    CsvStreamLoadSerializer(
+            String columnSeperator, String lineSeperator, TypeInformation<?>[] fieldTypes, int arity) {
+        this(columnSeperator, lineSeperator, fieldTypes, arity, ZoneId.systemDefault());
+    }
+
+    /**
+     * CsvStreamLoadSerializer
+     *
+     * @param columnSeperator
+     * @param lineSeperator
+     * @param fieldTypes 输出列类型，为null时按运行时类型写入
+     * @param arity 输出列数
+     * @param timeZone TIMESTAMP_LTZ、Instant和java.util.Date转换为DATETIME使用的时区
+     */
+    CsvStreamLoadSerializer(
+            String columnSeperator,
+            String lineSeperator,
+            TypeInformation<?>[] fieldTypes,
+            int arity,
+            ZoneId timeZone) {
+        this.columnSeperator = columnSeperator;
+        this.lineSeperator = lineSeperator;
+        StreamLoadFieldConverters.CsvEscaper escaper =
+                new StreamLoadFieldConverters.CsvEscaper(columnSeperator, lineSeperator);
+        this.converters = StreamLoadFieldConverters.csv(fieldTypes, arity, escaper, timeZone);
+        this.fallback = StreamLoadFieldConverters.csv((TypeInformation<?>) null, escaper, timeZone);
+    }
+
+    @Override
+    public void beginRecord(StreamLoadBuffer buffer) {
+        this.buffer = buffer;
+        if (!buffer.isEmpty()) {
+            buffer.writeString(lineSeperator);
+        }
+        buffer.beginRow();
+    }
+
+    @Override
+    public void writeField(int pos, Object value) throws IOException {
+        if (pos > 0) {
+            buffer.writeString(columnSeperator);
+        }
+        (pos < converters.length ? converters[pos] : fallback).write(buffer, value);
+    }
+
+    @Override
+    public void endRecord() {}
+
+    @Override
+    public void abortRecord() {}
+
+    @Override
+    public void appendRow(StreamLoadBuffer target, StreamLoadBuffer source, int row) {
+        if (!target.isEmpty()) {
+            target.writeString(lineSeperator);
+        }
+        target.beginRow();
+        target.writeBytes(source.array(), source.rowOffset(row), source.rowLength(row));
+        target.endRow();
+    }
+
+    @Override
+    public void endBatch(StreamLoadBuffer buffer) {}
+
+    @Override
+    public void setHeaders(HttpRequest request) {
+        request.setHeader("format", "csv");
+        request.setHeader("enclose", String.valueOf(StreamLoadFieldConverters.CsvEscaper.ENCLOSE));
+        request.setHeader("escape", String.valueOf(StreamLoadFieldConverters.CsvEscaper.ESCAPE));
+    }
+}
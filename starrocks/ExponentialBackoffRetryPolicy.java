@@ -0,0 +1,96 @@
+package starrocks;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 指数退避加随机抖动的重试策略，支持最大次数和总时长限制
+ *
+ * <p>永久错误由{@link #isRetryable(StreamLoadFailure)}识别后直接放弃，子类可覆盖该方法调整错误分类。
+ */
+public class ExponentialBackoffRetryPolicy implements StarRocksRetryPolicy {
+
+    /** 默认最大请求次数 */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    /** 默认首次退避时间（毫秒） */
+    public static final long DEFAULT_INITIAL_BACKOFF_MS = 500;
+    /** 默认最大退避时间（毫秒） */
+    public static final long DEFAULT_MAX_BACKOFF_MS = 10 * 1000;
+    /** 默认退避倍数 */
+    public static final double DEFAULT_MULTIPLIER = 2D;
+    /** 默认抖动比例 */
+    public static final double DEFAULT_JITTER = 0.2D;
+    /** 序列化版本号 */
+    private static final long serialVersionUID = 1L;
+
+    /** 最大请求次数，含第一次 */
+    private final int maxAttempts;
+    /** 首次退避时间（毫秒） */
+    private final long initialBackoffMs;
+    /** 最大退避时间（毫秒） */
+    private final long maxBackoffMs;
+    /** 退避倍数 */
+    private final double multiplier;
+    /** 抖动比例，退避时间在[1 - jitter, 1 + jitter]倍之间随机 */
+    private final double jitter;
+    /** 从第一次请求起的总时长限制（毫秒），0表示不限制 */
+    private final long deadlineMs;
+
+    public ExponentialBackoffRetryPolicy() {
+        this(
+                DEFAULT_MAX_ATTEMPTS,
+                DEFAULT_INITIAL_BACKOFF_MS,
+                DEFAULT_MAX_BACKOFF_MS,
+                DEFAULT_MULTIPLIER,
+                DEFAULT_JITTER,
+                0);
+    }
+
+    public ExponentialBackoffRetryPolicy(
+            int maxAttempts,
+            long initialBackoffMs,
+            long maxBackoffMs,
+            double multiplier,
+            double jitter,
+            long deadlineMs) {
+        if (maxAttempts < 1 || initialBackoffMs < 0 || maxBackoffMs < initialBackoffMs || multiplier < 1) {
+            throw new IllegalArgumentException("Invalid retry policy settings.");
+        }
+        if (jitter < 0 || jitter > 1 || deadlineMs < 0) {
+            throw new IllegalArgumentException("Invalid retry policy settings.");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.deadlineMs = deadlineMs;
+    }
+
+    @Override
+    public long nextBackoffMs(int attempt, long elapsedMs, StreamLoadFailure failure) {
+        if (attempt >= maxAttempts || !isRetryable(failure)) {
+            return -1;
+        }
+
+        double backoff = Math.min(maxBackoffMs, initialBackoffMs * Math.pow(multiplier, attempt - 1));
+        if (jitter > 0) {
+            backoff = backoff * (1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter));
+        }
+        long backoffMs = (long) backoff;
+
+        if (deadlineMs > 0 && elapsedMs + backoffMs >= deadlineMs) {
+            return -1;
+        }
+        return backoffMs;
+    }
+
+    /**
+     * 是否值得重试，默认按{@link StreamLoadErrorClassifier}区分临时错误和永久错误
+     *
+     * @param failure
+     * @return
+     */
+    protected boolean isRetryable(StreamLoadFailure failure) {
+        return StreamLoadErrorClassifier.isTransient(failure);
+    }
+}
@@ -0,0 +1,147 @@
+package starrocks;
+
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import org.apache.http.HttpRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.ZoneId;
+
+/**
+ * 以JSON数组写出记录，每条记录为一个以列名为key的对象
+ *
+ * <p>列名在构造时预先编码为SerializedString，字段值由按列类型生成的写入器直接调用JsonGenerator对应的方法，不经过反射或ObjectMapper。
+ */
+class JsonStreamLoadSerializer implements StreamLoadSerializer {
+
+    private static final int ARRAY_START = '[';
+
+    private static final int ARRAY_END = ']';
+
+    private static final int RECORD_DELIMITER = ',';
+
+    /** 预编码的列名 */
+    private final SerializableString[] fieldNames;
+
+    /** 按列类型生成的写入器 */
+    private final StreamLoadFieldConverters.JsonConverter[] converters;
+
+    /** 指向当前缓冲区的输出流 */
+    private final BufferOutputStream out = new BufferOutputStream();
+
+    /** 记录中途失败时停在未闭合的对象内，由abortRecord重新创建 */
+    private JsonGenerator generator;
+
+    /**
+     * JsonStreamLoadSerializer
+     *
+     * @param columns 输出列名
+     * @param fieldTypes 输出列类型，为null时按运行时类型写入
+     * @throws IOException
+     */
+    JsonStreamLoadSerializer(String[] columns, TypeInformation<?>[] fieldTypes) throws IOException {
+        this(columns, fieldTypes, ZoneId.systemDefault());
+    }
+
+    /**
+     * JsonStreamLoadSerializer
+     *
+     * @param columns 输出列名
+     * @param fieldTypes 输出列类型，为null时按运行时类型写入
+     * @param timeZone TIMESTAMP_LTZ、Instant和java.util.Date转换为DATETIME使用的时区
+     * @throws IOException
+     */
+    JsonStreamLoadSerializer(String[] columns, TypeInformation<?>[] fieldTypes, ZoneId timeZone)
+            throws IOException {
+        this.fieldNames = StreamLoadFieldConverters.fieldNames(columns);
+        this.converters = StreamLoadFieldConverters.json(fieldTypes, columns.length, timeZone);
+
+        this.generator = createGenerator();
+    }
+
+    private JsonGenerator createGenerator() throws IOException {
+        JsonGenerator generator = new JsonFactory().createGenerator(out);
+        generator.enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN);
+        // 记录间的逗号由本类写入，不需要生成器写根级分隔符
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    @Override
+    public void beginRecord(StreamLoadBuffer buffer) throws IOException {
+        out.buffer = buffer;
+        buffer.writeByte(buffer.isEmpty() ? ARRAY_START : RECORD_DELIMITER);
+        // 生成器有内部缓冲，此时尚未写出任何内容
+        buffer.beginRow();
+        generator.writeStartObject();
+    }
+
+    @Override
+    public void writeField(int pos, Object value) throws IOException {
+        if (pos >= fieldNames.length) {
+            throw new IOException(
+                    String.format("Record has more fields than the %d configured columns", fieldNames.length));
+        }
+
+        generator.writeFieldName(fieldNames[pos]);
+        converters[pos].write(generator, value);
+    }
+
+    @Override
+    public void endRecord() throws IOException {
+        generator.writeEndObject();
+        // 生成器内部有缓冲，每条记录结束时刷到批次缓冲区，保证行数和字节数统计准确
+        generator.flush();
+    }
+
+    @Override
+    public void abortRecord() {
+        // 旧生成器的内部缓冲中可能还有未刷出的半条记录，直接丢弃，不能close，close会补齐对象并刷到缓冲区
+        try {
+            generator = createGenerator();
+        } catch (IOException e) {
+            throw new IllegalStateException("Create json generator failed", e);
+        }
+    }
+
+    @Override
+    public void appendRow(StreamLoadBuffer target, StreamLoadBuffer source, int row) {
+        target.writeByte(target.isEmpty() ? ARRAY_START : RECORD_DELIMITER);
+        target.beginRow();
+        target.writeBytes(source.array(), source.rowOffset(row), source.rowLength(row));
+        target.endRow();
+    }
+
+    @Override
+    public void endBatch(StreamLoadBuffer buffer) {
+        if (!buffer.isEmpty()) {
+            buffer.writeByte(ARRAY_END);
+        }
+    }
+
+    @Override
+    public void setHeaders(HttpRequest request) {
+        request.setHeader("format", "json");
+        request.setHeader("strip_outer_array", "true");
+    }
+
+    /** 写入当前批次缓冲区的输出流 */
+    private static final class BufferOutputStream extends OutputStream {
+
+        private StreamLoadBuffer buffer;
+
+        @Override
+        public void write(int b) {
+            buffer.writeByte(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.writeBytes(b, off, len);
+        }
+    }
+}
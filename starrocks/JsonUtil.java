@@ -7,7 +7,6 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.google.gson.Gson;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
@@ -19,15 +18,17 @@ import java.util.Map;
 @Slf4j
 public class JsonUtil {
 
-    public static ObjectMapper objectMapper = new ObjectMapper();
-    public static Gson gson = new Gson();
+    /** 配置完成后不再修改，可被多个线程共用 */
+    private static final ObjectMapper objectMapper = createObjectMapper();
 
-    static {
+    private static ObjectMapper createObjectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
         // 修改LocalDateTime的序列化和反序列化格式
-        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        objectMapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper.registerModule(new JavaTimeModule());
         // 忽略 在json字符串中存在，但是在java对象中不存在对应属性的情况。防止错误
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return mapper;
     }
 
     /**
@@ -37,7 +38,6 @@ public class JsonUtil {
      * @return
      */
     public static Map<String, String> string2Map(String str) {
-        ObjectMapper objectMapper = new ObjectMapper();
         return string2Obj(str, new TypeReference<Map<String, String>>() {});
     }
 
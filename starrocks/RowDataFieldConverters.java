@@ -0,0 +1,145 @@
+package starrocks;
+
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.table.data.DecimalData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.data.conversion.DataStructureConverter;
+import org.apache.flink.table.data.conversion.DataStructureConverters;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.utils.TypeConversions;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+/**
+ * RowData内部数据结构的字段写入器
+ *
+ * <p>字符串直接写出StringData的UTF-8字节，不解码为String；DATE、TIME按天数和毫秒数格式化，TIMESTAMP和DECIMAL从内部结构直接转换。
+ * TIMESTAMP_LTZ按会话时区（table.local-time-zone）转换为DATETIME，与Flink SQL中显示的值一致。
+ * 其他类型（BINARY、ARRAY、MAP、ROW等）先转换为外部类型，再交给通用写入器。
+ */
+final class RowDataFieldConverters {
+
+    private RowDataFieldConverters() {}
+
+    /**
+     * 按逻辑类型生成CSV写入器，null由调用方处理
+     *
+     * @param type
+     * @param escaper
+     * @param timeZone TIMESTAMP_LTZ使用的时区
+     * @return
+     */
+    static StreamLoadFieldConverters.CsvConverter csv(
+            LogicalType type, StreamLoadFieldConverters.CsvEscaper escaper, ZoneId timeZone) {
+        switch (type.getTypeRoot()) {
+            case CHAR:
+            case VARCHAR:
+                return (buffer, value) -> escaper.writeUtf8(buffer, ((StringData) value).toBytes());
+            case BOOLEAN:
+                return (buffer, value) -> buffer.writeBoolean((Boolean) value);
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+                return (buffer, value) -> buffer.writeLong(((Number) value).longValue());
+            case FLOAT:
+                return (buffer, value) -> buffer.writeFloat((Float) value);
+            case DOUBLE:
+                return (buffer, value) -> buffer.writeDouble((Double) value);
+            case DECIMAL:
+                return (buffer, value) -> buffer.writeString(((DecimalData) value).toBigDecimal().toPlainString());
+            case DATE:
+            case TIME_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
+                StringBuilder scratch = new StringBuilder(32);
+                return (buffer, value) -> {
+                    scratch.setLength(0);
+                    formatTemporal(type, value, timeZone, scratch);
+                    buffer.writeString(scratch);
+                };
+            default:
+                DataStructureConverter<Object, Object> external = externalConverter(type);
+                StreamLoadFieldConverters.CsvConverter generic =
+                        StreamLoadFieldConverters.csv((TypeInformation<?>) null, escaper, timeZone);
+                return (buffer, value) -> generic.write(buffer, external.toExternal(value));
+        }
+    }
+
+    /**
+     * 按逻辑类型生成JSON写入器，null由调用方处理
+     *
+     * @param type
+     * @param timeZone TIMESTAMP_LTZ使用的时区
+     * @return
+     */
+    static StreamLoadFieldConverters.JsonConverter json(LogicalType type, ZoneId timeZone) {
+        switch (type.getTypeRoot()) {
+            case CHAR:
+            case VARCHAR:
+                return (generator, value) -> {
+                    byte[] utf8 = ((StringData) value).toBytes();
+                    generator.writeUTF8String(utf8, 0, utf8.length);
+                };
+            case BOOLEAN:
+                return (generator, value) -> generator.writeBoolean((Boolean) value);
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+                return (generator, value) -> generator.writeNumber(((Number) value).intValue());
+            case BIGINT:
+                return (generator, value) -> generator.writeNumber((Long) value);
+            case FLOAT:
+                return (generator, value) -> generator.writeNumber((Float) value);
+            case DOUBLE:
+                return (generator, value) -> generator.writeNumber((Double) value);
+            case DECIMAL:
+                return (generator, value) -> generator.writeNumber(((DecimalData) value).toBigDecimal());
+            case DATE:
+            case TIME_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
+                StringBuilder scratch = new StringBuilder(32);
+                return (generator, value) -> {
+                    scratch.setLength(0);
+                    formatTemporal(type, value, timeZone, scratch);
+                    generator.writeString(scratch.toString());
+                };
+            default:
+                DataStructureConverter<Object, Object> external = externalConverter(type);
+                StreamLoadFieldConverters.JsonConverter generic =
+                        StreamLoadFieldConverters.json((TypeInformation<?>) null, timeZone);
+                return (generator, value) -> generic.write(generator, external.toExternal(value));
+        }
+    }
+
+    /** DATE为距1970-01-01的天数，TIME为当天的毫秒数，TIMESTAMP_LTZ为时间点 */
+    private static void formatTemporal(LogicalType type, Object value, ZoneId timeZone, StringBuilder out) {
+        switch (type.getTypeRoot()) {
+            case DATE:
+                StreamLoadFieldConverters.DATE_FORMATTER.formatTo(LocalDate.ofEpochDay((Integer) value), out);
+                break;
+            case TIME_WITHOUT_TIME_ZONE:
+                StreamLoadFieldConverters.TIME_FORMATTER.formatTo(
+                        LocalTime.ofNanoOfDay((Integer) value * 1_000_000L), out);
+                break;
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+                StreamLoadFieldConverters.DATETIME_FORMATTER.formatTo(((TimestampData) value).toLocalDateTime(), out);
+                break;
+            default:
+                StreamLoadFieldConverters.DATETIME_FORMATTER.formatTo(
+                        LocalDateTime.ofInstant(((TimestampData) value).toInstant(), timeZone), out);
+        }
+    }
+
+    private static DataStructureConverter<Object, Object> externalConverter(LogicalType type) {
+        DataStructureConverter<Object, Object> converter =
+                DataStructureConverters.getConverter(TypeConversions.fromLogicalToDataType(type));
+        converter.open(RowDataFieldConverters.class.getClassLoader());
+        return converter;
+    }
+}
@@ -0,0 +1,42 @@
+package starrocks;
+
+import org.apache.flink.api.java.functions.KeySelector;
+
+/**
+ * 以记录所属的StarRocks分桶号为key，配合StarRocksBucketPartitioner用于DataSet或DataStream的partitionCustom
+ *
+ * @param <IT> 记录类型
+ */
+public class StarRocksBucketKeySelector<IT> implements KeySelector<IT, Integer> {
+
+    /** 序列化版本号 */
+    private static final long serialVersionUID = 1L;
+
+    /** 分桶方式 */
+    private final StarRocksDistribution distribution;
+
+    /** 字段读取 */
+    private final StarRocksRecordAccessor<IT> accessor;
+
+    /** 分桶列对应的记录字段位置 */
+    private final int[] fieldIndexes;
+
+    public StarRocksBucketKeySelector(
+            StarRocksDistribution distribution, StarRocksRecordAccessor<IT> accessor, int... fieldIndexes) {
+        if (fieldIndexes.length != distribution.getColumns().length) {
+            throw new IllegalArgumentException("One field is required for each distribution column.");
+        }
+        this.distribution = distribution;
+        this.accessor = accessor;
+        this.fieldIndexes = fieldIndexes;
+    }
+
+    @Override
+    public Integer getKey(IT record) {
+        Object[] values = new Object[fieldIndexes.length];
+        for (int i = 0; i < fieldIndexes.length; i++) {
+            values[i] = accessor.getField(record, fieldIndexes[i]);
+        }
+        return distribution.bucketOf(values);
+    }
+}
@@ -0,0 +1,19 @@
+package starrocks;
+
+import org.apache.flink.api.common.functions.Partitioner;
+
+/**
+ * 按分桶号把记录分配到下游subtask，同一分桶始终进入同一个subtask，每个subtask只写约buckets / numPartitions个分桶
+ *
+ * <p>并行度最好是分桶数的约数或倍数，否则各subtask分到的分桶数不均。
+ */
+public class StarRocksBucketPartitioner implements Partitioner<Integer> {
+
+    /** 序列化版本号 */
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public int partition(Integer bucket, int numPartitions) {
+        return bucket % numPartitions;
+    }
+}
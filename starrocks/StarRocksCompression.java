@@ -0,0 +1,22 @@
+package starrocks;
+
+/** Stream Load请求体的压缩方式 */
+public enum StarRocksCompression {
+    /** 不压缩 */
+    NONE(null),
+    /** gzip */
+    GZIP("GZIP"),
+    /** lz4 frame格式 */
+    LZ4_FRAME("LZ4_FRAME");
+
+    /** Stream Load compression header取值 */
+    private final String headerValue;
+
+    StarRocksCompression(String headerValue) {
+        this.headerValue = headerValue;
+    }
+
+    String getHeaderValue() {
+        return headerValue;
+    }
+}
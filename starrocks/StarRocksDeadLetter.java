@@ -0,0 +1,50 @@
+package starrocks;
+
+import java.io.Serializable;
+
+/** 被StarRocks拒绝导入的一行数据 */
+public class StarRocksDeadLetter implements Serializable {
+
+    /** 序列化版本号 */
+    private static final long serialVersionUID = 1L;
+
+    /** 目标表 */
+    private final String table;
+
+    /** 最后一次尝试导入该行的label */
+    private final String label;
+
+    /** 按导入格式序列化后的行，CSV为一行文本，JSON为一个对象 */
+    private final String row;
+
+    /** StarRocks给出的拒绝原因 */
+    private final String reason;
+
+    public StarRocksDeadLetter(String table, String label, String row, String reason) {
+        this.table = table;
+        this.label = label;
+        this.row = row;
+        this.reason = reason;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getRow() {
+        return row;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("table=%s label=%s reason=%s row=%s", table, label, reason, row);
+    }
+}
@@ -0,0 +1,37 @@
+package starrocks;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * 被拒绝行的去向，如写入本地文件、消息队列或另一张表
+ *
+ * <p>OutputFormat和Sink无法输出Flink旁路流，被拒绝的行交给本接口处理。多个发送线程的调用由写入方串行化，实现无需加锁。
+ * handle抛出异常时任务失败。
+ */
+@FunctionalInterface
+public interface StarRocksDeadLetterHandler extends Serializable {
+
+    /**
+     * 并行实例启动时调用
+     *
+     * @param taskNumber 并行实例序号
+     * @throws IOException
+     */
+    default void open(int taskNumber) throws IOException {}
+
+    /**
+     * 处理一行被拒绝的数据
+     *
+     * @param deadLetter
+     * @throws IOException
+     */
+    void handle(StarRocksDeadLetter deadLetter) throws IOException;
+
+    /**
+     * 并行实例关闭时调用
+     *
+     * @throws IOException
+     */
+    default void close() throws IOException {}
+}
@@ -0,0 +1,245 @@
+package starrocks;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * StarRocks表的分桶方式：分桶列和分桶数
+ *
+ * <p>按与BE相同的方式计算分桶：依次对各分桶列的值做CRC32（整数按定长小端字节，字符串按UTF-8字节，DATE/DATETIME按字符串格式，
+ * DATETIME的微秒不为0时固定为6位小数，null按4字节的0），
+ * 结果对分桶数取模。上游按分桶号分区后，每个subtask只写部分分桶对应的tablet，单次导入涉及的tablet和版本更少。
+ * DECIMAL等其他类型按字符串计算，与BE不一定一致，此时仍能保证相同分桶键的行进入同一个subtask。
+ */
+public class StarRocksDistribution implements Serializable {
+
+    /** 序列化版本号 */
+    private static final long serialVersionUID = 1L;
+
+    /** 建表语句中的分桶定义 */
+    private static final Pattern DISTRIBUTED_BY =
+            Pattern.compile(
+                    "DISTRIBUTED\\s+BY\\s+HASH\\s*\\(([^)]*)\\)(\\s*BUCKETS\\s+(\\d+))?", Pattern.CASE_INSENSITIVE);
+
+    /** DATETIME的秒以前部分，小数部分单独按微秒补齐6位 */
+    private static final DateTimeFormatter DATETIME_SECONDS_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** 分桶列 */
+    private final String[] columns;
+
+    /** 分桶数 */
+    private final int buckets;
+
+    private StarRocksDistribution(String[] columns, int buckets) {
+        this.columns = columns;
+        this.buckets = buckets;
+    }
+
+    /**
+     * 按配置指定分桶方式
+     *
+     * @param buckets 分桶数
+     * @param columns 分桶列，顺序与建表语句一致
+     * @return
+     */
+    public static StarRocksDistribution of(int buckets, String... columns) {
+        if (buckets < 1 || columns == null || columns.length == 0) {
+            throw new IllegalArgumentException("Distribution requires positive buckets and at least one column.");
+        }
+        return new StarRocksDistribution(columns, buckets);
+    }
+
+    /**
+     * 通过FE的MySQL协议端口执行SHOW CREATE TABLE获取分桶方式，需要classpath中有MySQL JDBC驱动
+     *
+     * @param jdbcUrl 如jdbc:mysql://127.0.0.1:9030
+     * @param username
+     * @param password
+     * @param database
+     * @param table
+     * @return
+     * @throws IOException
+     */
+    public static StarRocksDistribution fetch(
+            String jdbcUrl, String username, String password, String database, String table) throws IOException {
+        String sql = String.format("SHOW CREATE TABLE `%s`.`%s`", database, table);
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, username, password);
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(sql)) {
+            if (!resultSet.next()) {
+                throw new IOException("SHOW CREATE TABLE returned nothing for " + database + "." + table);
+            }
+            return parse(resultSet.getString(2));
+        } catch (SQLException e) {
+            throw new IOException("Fetch distribution of " + database + "." + table + " failed", e);
+        }
+    }
+
+    /**
+     * 从建表语句解析分桶方式
+     *
+     * @param createTable
+     * @return
+     * @throws IOException 不是HASH分桶或未指定分桶数时
+     */
+    static StarRocksDistribution parse(String createTable) throws IOException {
+        Matcher matcher = DISTRIBUTED_BY.matcher(createTable);
+        if (!matcher.find()) {
+            throw new IOException("Table is not hash distributed: " + createTable);
+        }
+        if (matcher.group(3) == null) {
+            throw new IOException("Table does not declare BUCKETS, cannot align to its tablets: " + createTable);
+        }
+
+        String[] columns = StringUtils.split(matcher.group(1), ',');
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = StringUtils.strip(columns[i].trim(), "`");
+        }
+        return of(Integer.parseInt(matcher.group(3)), columns);
+    }
+
+    public String[] getColumns() {
+        return columns.clone();
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * 计算分桶号
+     *
+     * @param values 各分桶列的值，顺序与getColumns一致
+     * @return 0到buckets - 1
+     */
+    public int bucketOf(Object... values) {
+        CRC32 crc = new CRC32();
+        for (Object value : values) {
+            update(crc, value);
+        }
+        return (int) (crc.getValue() % buckets);
+    }
+
+    /**
+     * 按分桶号分区的KeySelector，分桶列按名称在导入列中查找对应的记录字段
+     *
+     * @param accessor
+     * @param loadColumns 导入列，记录第i个字段对应第i列
+     * @param <IT>
+     * @return
+     */
+    public <IT> StarRocksBucketKeySelector<IT> keySelector(StarRocksRecordAccessor<IT> accessor, String[] loadColumns) {
+        int[] fieldIndexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            fieldIndexes[i] = Arrays.asList(loadColumns).indexOf(columns[i]);
+            if (fieldIndexes[i] < 0) {
+                throw new IllegalArgumentException(
+                        String.format(
+                                "Distribution column %s is not loaded, columns: %s",
+                                columns[i], Arrays.toString(loadColumns)));
+            }
+        }
+        return new StarRocksBucketKeySelector<>(this, accessor, fieldIndexes);
+    }
+
+    /** 按分桶号把记录分配到下游subtask */
+    public StarRocksBucketPartitioner partitioner() {
+        return new StarRocksBucketPartitioner();
+    }
+
+    private static void update(CRC32 crc, Object value) {
+        if (value == null) {
+            // 与BE的zlib_crc_hash_null一致，null按4字节的0参与计算
+            updateLittleEndian(crc, 0, 4);
+            return;
+        }
+        if (value instanceof Byte) {
+            crc.update((Byte) value);
+        } else if (value instanceof Short) {
+            updateLittleEndian(crc, (Short) value, 2);
+        } else if (value instanceof Integer) {
+            updateLittleEndian(crc, (Integer) value, 4);
+        } else if (value instanceof Long) {
+            updateLittleEndian(crc, (Long) value, 8);
+        } else if (value instanceof BigInteger) {
+            // LARGEINT为16字节小端补码
+            byte[] bigEndian = ((BigInteger) value).toByteArray();
+            byte[] littleEndian = new byte[16];
+            byte sign = (byte) (((BigInteger) value).signum() < 0 ? 0xFF : 0);
+            for (int i = 0; i < 16; i++) {
+                int pos = bigEndian.length - 1 - i;
+                littleEndian[i] = pos >= 0 ? bigEndian[pos] : sign;
+            }
+            crc.update(littleEndian);
+        } else if (value instanceof Boolean) {
+            crc.update((Boolean) value ? 1 : 0);
+        } else if (value instanceof Date
+                || value instanceof LocalDate
+                || value instanceof LocalDateTime
+                || value instanceof Instant) {
+            crc.update(formatTemporal(value).getBytes(StandardCharsets.UTF_8));
+        } else {
+            crc.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 与BE的TimestampValue::to_string一致：DATETIME为yyyy-MM-dd HH:mm:ss，微秒不为0时追加6位小数，不去掉末尾的0；
+     * java.util.Date和Instant按JVM默认时区转换，DATE按yyyy-MM-dd
+     *
+     * @param value
+     * @return
+     */
+    private static String formatTemporal(Object value) {
+        LocalDateTime dateTime;
+        if (value instanceof Timestamp) {
+            dateTime = ((Timestamp) value).toLocalDateTime();
+        } else if (value instanceof LocalDateTime) {
+            dateTime = (LocalDateTime) value;
+        } else if (value instanceof Instant) {
+            dateTime = LocalDateTime.ofInstant((Instant) value, ZoneId.systemDefault());
+        } else if (value instanceof Date && !(value instanceof java.sql.Date) && !(value instanceof java.sql.Time)) {
+            dateTime = LocalDateTime.ofInstant(((Date) value).toInstant(), ZoneId.systemDefault());
+        } else {
+            StringBuilder text = new StringBuilder(16);
+            StreamLoadFieldConverters.formatTemporal(value, text);
+            return text.toString();
+        }
+
+        String seconds = DATETIME_SECONDS_FORMATTER.format(dateTime);
+        int micros = dateTime.getNano() / 1000;
+        return micros == 0 ? seconds : seconds + String.format(".%06d", micros);
+    }
+
+    private static void updateLittleEndian(CRC32 crc, long value, int width) {
+        for (int i = 0; i < width; i++) {
+            crc.update((int) (value >>> (8 * i)) & 0xFF);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HASH(%s) BUCKETS %d", String.join(", ", columns), buckets);
+    }
+}
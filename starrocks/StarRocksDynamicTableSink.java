@@ -0,0 +1,49 @@
+package starrocks;
+
+import org.apache.flink.table.connector.ChangelogMode;
+import org.apache.flink.table.connector.sink.DynamicTableSink;
+import org.apache.flink.table.connector.sink.SinkV2Provider;
+import org.apache.flink.table.data.RowData;
+
+/**
+ * Table/SQL接入，物理列按名称导入同名的StarRocks列，RowData字段直接写出不转换为Row
+ *
+ * <p>声明了主键时接受upsert变更流，UPDATE_AFTER按主键覆盖，DELETE删除，目标表需为主键表。
+ */
+class StarRocksDynamicTableSink implements DynamicTableSink {
+
+    /** 按物理列配置好的sink */
+    private final StarRocksSink<RowData> sink;
+
+    /** 是否按upsert模式写入 */
+    private final boolean upsert;
+
+    /** sink并行度，为null时与上游相同 */
+    private final Integer parallelism;
+
+    StarRocksDynamicTableSink(StarRocksSink<RowData> sink, boolean upsert, Integer parallelism) {
+        this.sink = sink;
+        this.upsert = upsert;
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public ChangelogMode getChangelogMode(ChangelogMode requestedMode) {
+        return upsert ? ChangelogMode.upsert() : ChangelogMode.insertOnly();
+    }
+
+    @Override
+    public SinkRuntimeProvider getSinkRuntimeProvider(Context context) {
+        return SinkV2Provider.of(sink, parallelism);
+    }
+
+    @Override
+    public DynamicTableSink copy() {
+        return new StarRocksDynamicTableSink(sink, upsert, parallelism);
+    }
+
+    @Override
+    public String asSummaryString() {
+        return "StarRocks";
+    }
+}
@@ -0,0 +1,228 @@
+package starrocks;
+
+import org.apache.flink.configuration.ConfigOption;
+import org.apache.flink.configuration.ConfigOptions;
+import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.table.api.config.TableConfigOptions;
+import org.apache.flink.table.connector.sink.DynamicTableSink;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.factories.DynamicTableSinkFactory;
+import org.apache.flink.table.factories.FactoryUtil;
+import org.apache.flink.table.types.logical.RowType;
+
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * connector = 'starrocks-outputformat'的Table/SQL sink
+ *
+ * <pre>
+ * CREATE TABLE events (...) WITH (
+ *     'connector' = 'starrocks-outputformat',
+ *     'url' = '127.0.0.1:8030',
+ *     'username' = 'root',
+ *     'database' = 'test',
+ *     'table' = 'events',
+ *     'sink.properties.timeout' = '600'
+ * )
+ * </pre>
+ *
+ * <p>sink.properties.前缀的参数去掉前缀后作为Stream Load header发送。声明了主键时按upsert模式写入，DELETE消息删除主键表中的行。
+ */
+public class StarRocksDynamicTableSinkFactory implements DynamicTableSinkFactory {
+
+    /** connector标识 */
+    public static final String IDENTIFIER = "starrocks-outputformat";
+
+    public static final ConfigOption<String> URL =
+            ConfigOptions.key("url")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription("FE or BE HTTP addresses, separated by commas.");
+
+    public static final ConfigOption<String> USERNAME =
+            ConfigOptions.key("username").stringType().noDefaultValue().withDescription("StarRocks user.");
+
+    public static final ConfigOption<String> PASSWORD =
+            ConfigOptions.key("password").stringType().defaultValue("").withDescription("StarRocks password.");
+
+    public static final ConfigOption<String> DATABASE =
+            ConfigOptions.key("database").stringType().noDefaultValue().withDescription("StarRocks database.");
+
+    public static final ConfigOption<String> TABLE =
+            ConfigOptions.key("table").stringType().noDefaultValue().withDescription("StarRocks table.");
+
+    public static final ConfigOption<Integer> BATCH_INTERVAL =
+            ConfigOptions.key("sink.batch-interval")
+                    .intType()
+                    .defaultValue(StarRocksLoadWriter.DEFAULT_FLUSH_MAX_SIZE)
+                    .withDescription("Max rows per Stream Load batch.");
+
+    public static final ConfigOption<Long> BATCH_MAX_BYTES =
+            ConfigOptions.key("sink.batch-max-bytes")
+                    .longType()
+                    .defaultValue(0L)
+                    .withDescription("Max bytes per Stream Load batch, 0 means unlimited.");
+
+    public static final ConfigOption<Long> FLUSH_INTERVAL_MS =
+            ConfigOptions.key("sink.flush-interval-ms")
+                    .longType()
+                    .defaultValue(0L)
+                    .withDescription("Flush partially filled batches after this many milliseconds, 0 disables it.");
+
+    public static final ConfigOption<Boolean> ASYNC_FLUSH =
+            ConfigOptions.key("sink.async-flush")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription("Send batches on a background thread.");
+
+    public static final ConfigOption<Integer> MAX_IN_FLIGHT_BATCHES =
+            ConfigOptions.key("sink.max-in-flight-batches")
+                    .intType()
+                    .defaultValue(StarRocksLoadOptions.DEFAULT_MAX_IN_FLIGHT_BATCHES)
+                    .withDescription("Max batches being sent at the same time when async flush is enabled.");
+
+    public static final ConfigOption<Integer> SENDER_THREADS =
+            ConfigOptions.key("sink.sender-threads")
+                    .intType()
+                    .defaultValue(1)
+                    .withDescription("Threads sending batches concurrently when async flush is enabled.");
+
+    public static final ConfigOption<Boolean> ORDERED_LOADS =
+            ConfigOptions.key("sink.ordered-loads")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Load batches of the table in order when several sender threads are used. "
+                                    + "Enabled by default for tables with a primary key.");
+
+    public static final ConfigOption<StarRocksFormat> FORMAT =
+            ConfigOptions.key("sink.format")
+                    .enumType(StarRocksFormat.class)
+                    .defaultValue(StarRocksFormat.CSV)
+                    .withDescription("Stream Load data format.");
+
+    public static final ConfigOption<StarRocksCompression> COMPRESSION =
+            ConfigOptions.key("sink.compression")
+                    .enumType(StarRocksCompression.class)
+                    .defaultValue(StarRocksCompression.NONE)
+                    .withDescription("Stream Load body compression.");
+
+    public static final ConfigOption<String> LABEL_PREFIX =
+            ConfigOptions.key("sink.label-prefix")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription("Prefix of Stream Load labels.");
+
+    /** 以该前缀开头的参数原样作为Stream Load header */
+    public static final String PROPERTIES_PREFIX = "sink.properties.";
+
+    public static final ConfigOption<String> DEAD_LETTER_DIRECTORY =
+            ConfigOptions.key("sink.dead-letter-directory")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription(
+                            "Local directory receiving rows rejected by StarRocks as JSON lines, "
+                                    + "the rest of a rejected batch is loaded again.");
+
+    public static final ConfigOption<Double> MAX_DEAD_LETTER_RATIO =
+            ConfigOptions.key("sink.dead-letter-max-ratio")
+                    .doubleType()
+                    .defaultValue(StarRocksLoadOptions.DEFAULT_MAX_DEAD_LETTER_RATIO)
+                    .withDescription("Fraction of a batch that may be dead-lettered before the batch fails.");
+
+    public static final ConfigOption<Integer> MAX_CONNECTIONS =
+            ConfigOptions.key("sink.max-connections")
+                    .intType()
+                    .defaultValue(StarRocksLoadOptions.DEFAULT_MAX_CONNECTIONS)
+                    .withDescription("Max HTTP connections per subtask.");
+
+    @Override
+    public String factoryIdentifier() {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public Set<ConfigOption<?>> requiredOptions() {
+        Set<ConfigOption<?>> options = new HashSet<>();
+        options.add(URL);
+        options.add(USERNAME);
+        options.add(DATABASE);
+        options.add(TABLE);
+        return options;
+    }
+
+    @Override
+    public Set<ConfigOption<?>> optionalOptions() {
+        Set<ConfigOption<?>> options = new HashSet<>();
+        options.add(PASSWORD);
+        options.add(BATCH_INTERVAL);
+        options.add(BATCH_MAX_BYTES);
+        options.add(FLUSH_INTERVAL_MS);
+        options.add(ASYNC_FLUSH);
+        options.add(MAX_IN_FLIGHT_BATCHES);
+        options.add(SENDER_THREADS);
+        options.add(ORDERED_LOADS);
+        options.add(FORMAT);
+        options.add(COMPRESSION);
+        options.add(LABEL_PREFIX);
+        options.add(DEAD_LETTER_DIRECTORY);
+        options.add(MAX_DEAD_LETTER_RATIO);
+        options.add(MAX_CONNECTIONS);
+        options.add(FactoryUtil.SINK_PARALLELISM);
+        return options;
+    }
+
+    @Override
+    public DynamicTableSink createDynamicTableSink(Context context) {
+        FactoryUtil.TableFactoryHelper helper = FactoryUtil.createTableFactoryHelper(this, context);
+        helper.validateExcept(PROPERTIES_PREFIX);
+        ReadableConfig config = helper.getOptions();
+
+        RowType rowType =
+                (RowType) context.getCatalogTable().getResolvedSchema().toPhysicalRowDataType().getLogicalType();
+        boolean upsert = context.getCatalogTable().getResolvedSchema().getPrimaryKey().isPresent();
+        StarRocksSink.StarRocksSinkBuilder<RowData> builder =
+                StarRocksSink.buildSink(StarRocksRecordAccessor.forRowData(rowType))
+                        .setUrl(config.get(URL))
+                        .setUsername(config.get(USERNAME))
+                        .setPassword(config.get(PASSWORD))
+                        .setDatabase(config.get(DATABASE))
+                        .setTable(config.get(TABLE))
+                        .setColumns(rowType.getFieldNames().toArray(new String[0]))
+                        .setBatchInterval(config.get(BATCH_INTERVAL))
+                        .setBatchMaxBytes(config.get(BATCH_MAX_BYTES))
+                        .setFlushIntervalMs(config.get(FLUSH_INTERVAL_MS))
+                        .setAsyncFlush(config.get(ASYNC_FLUSH))
+                        .setMaxInFlightBatches(config.get(MAX_IN_FLIGHT_BATCHES))
+                        .setSenderThreads(config.get(SENDER_THREADS))
+                        // 主键表的变更需按顺序提交，未显式配置时upsert模式下开启
+                        .setOrderedLoads(config.getOptional(ORDERED_LOADS).orElse(upsert))
+                        .setFormat(config.get(FORMAT))
+                        .setCompression(config.get(COMPRESSION))
+                        .setLabelPrefix(config.getOptional(LABEL_PREFIX).orElse(null))
+                        .setMaxConnections(config.get(MAX_CONNECTIONS))
+                        .setUpsert(upsert)
+                        .setTimeZone(localTimeZone(context.getConfiguration()))
+                        .setMaxDeadLetterRatio(config.get(MAX_DEAD_LETTER_RATIO));
+        config.getOptional(DEAD_LETTER_DIRECTORY).ifPresent(builder::setDeadLetterDirectory);
+        for (Map.Entry<String, String> option : context.getCatalogTable().getOptions().entrySet()) {
+            if (option.getKey().startsWith(PROPERTIES_PREFIX)) {
+                builder.setProperty(option.getKey().substring(PROPERTIES_PREFIX.length()), option.getValue());
+            }
+        }
+        StarRocksSink<RowData> sink = builder.finish();
+        return new StarRocksDynamicTableSink(
+                sink, upsert, config.getOptional(FactoryUtil.SINK_PARALLELISM).orElse(null));
+    }
+
+    /** 会话时区，TIMESTAMP_LTZ按它转换为DATETIME；未配置时为default，使用JVM默认时区 */
+    private static ZoneId localTimeZone(ReadableConfig tableConfig) {
+        String zone = tableConfig.get(TableConfigOptions.LOCAL_TIME_ZONE);
+        return TableConfigOptions.LOCAL_TIME_ZONE.defaultValue().equals(zone)
+                ? ZoneId.systemDefault()
+                : ZoneId.of(zone);
+    }
+}
@@ -0,0 +1,70 @@
+package starrocks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 把被拒绝的行以JSON Lines写入本地目录，每个并行实例一个文件
+ *
+ * <p>每行一个对象，包含table、label、reason和row。每条写入后刷到文件，任务失败时已处理的行不会丢失。
+ */
+public class StarRocksFileDeadLetterHandler implements StarRocksDeadLetterHandler {
+
+    /** 序列化版本号 */
+    private static final long serialVersionUID = 1L;
+
+    /** 只用于写出Map，线程安全 */
+    private static final ObjectWriter WRITER = new ObjectMapper().writer();
+
+    /** 输出目录 */
+    private final String directory;
+
+    /** 当前输出文件 */
+    private transient Path file;
+
+    private transient BufferedWriter writer;
+
+    public StarRocksFileDeadLetterHandler(String directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void open(int taskNumber) throws IOException {
+        Path dir = Files.createDirectories(Paths.get(directory));
+        file = Files.createTempFile(dir, "starrocks-dead-letter-" + taskNumber + "-", ".jsonl");
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void handle(StarRocksDeadLetter deadLetter) throws IOException {
+        Map<String, String> line = new LinkedHashMap<>();
+        line.put("table", deadLetter.getTable());
+        line.put("label", deadLetter.getLabel());
+        line.put("reason", deadLetter.getReason());
+        line.put("row", deadLetter.getRow());
+        writer.write(WRITER.writeValueAsString(line));
+        writer.newLine();
+        writer.flush();
+    }
+
+    /** 当前输出文件，open之前为null */
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package starrocks;
+
+/** Stream Load数据格式 */
+public enum StarRocksFormat {
+    /** 分隔符文本，列分隔符\t，行分隔符\n */
+    CSV,
+    /** JSON数组，配合strip_outer_array导入 */
+    JSON
+}
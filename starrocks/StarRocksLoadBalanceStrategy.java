@@ -0,0 +1,9 @@
+package starrocks;
+
+/** 多个FE/BE地址间的负载均衡策略 */
+public enum StarRocksLoadBalanceStrategy {
+    /** 轮询 */
+    ROUND_ROBIN,
+    /** 选择在途请求最少的节点 */
+    LEAST_OUTSTANDING
+}
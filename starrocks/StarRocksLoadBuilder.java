@@ -0,0 +1,474 @@
+package starrocks;
+
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.ZoneId;
+import java.util.Map;
+
+/**
+ * 各接入方式共用的builder，子类只提供类型相关的设置和finish
+ *
+ * @param <B> 子类builder类型
+ */
+public abstract class StarRocksLoadBuilder<B extends StarRocksLoadBuilder<B>> {
+    /** 由连接器设置、不能通过properties覆盖的header，包括决定数据解析方式的格式参数 */
+    private static final String[] RESERVED_PROPERTIES = {
+        "label",
+        "columns",
+        "format",
+        "compression",
+        "Expect",
+        "Authorization",
+        "db",
+        "table",
+        "column_separator",
+        "row_delimiter",
+        "enclose",
+        "escape",
+        "strip_outer_array",
+        "jsonpaths",
+    };
+    /** 数据库链接url */
+    protected String url;
+    /** 数据库用户名 */
+    protected String username;
+    /** 数据库密码 */
+    protected String password;
+    /** 数据库名 */
+    protected String database;
+    /** 表名 */
+    protected String table;
+    /** 导入列 */
+    protected String[] columns;
+    /** 批次大小 */
+    protected int batchInterval = StarRocksLoadWriter.DEFAULT_FLUSH_MAX_SIZE;
+    /** 可选调优参数 */
+    protected final StarRocksLoadOptions options = new StarRocksLoadOptions();
+
+    protected StarRocksLoadBuilder() {}
+
+    /** 返回子类builder */
+    protected abstract B self();
+
+    /** 是否需要setTable，按记录路由时为false */
+    protected boolean requiresTable() {
+        return true;
+    }
+
+    public B setUrl(String url) {
+        this.url = url;
+        return self();
+    }
+
+    public B setUrls(String... urls) {
+        this.url = String.join(",", urls);
+        return self();
+    }
+
+    public B setUsername(String username) {
+        this.username = username;
+        return self();
+    }
+
+    public B setPassword(String password) {
+        this.password = password;
+        return self();
+    }
+
+    public B setDatabase(String database) {
+        this.database = database;
+        return self();
+    }
+
+    public B setTable(String table) {
+        this.table = table;
+        return self();
+    }
+
+    public B setColumns(String[] columns) {
+        this.columns = columns;
+        return self();
+    }
+
+    public B setBatchInterval(int batchInterval) {
+        this.batchInterval = batchInterval;
+        return self();
+    }
+
+    public B setAsyncFlush(boolean asyncFlush) {
+        options.setAsyncFlush(asyncFlush);
+        return self();
+    }
+
+    public B setMaxInFlightBatches(int maxInFlightBatches) {
+        options.setMaxInFlightBatches(maxInFlightBatches);
+        return self();
+    }
+
+    public B setSenderThreads(int senderThreads) {
+        options.setSenderThreads(senderThreads);
+        return self();
+    }
+
+    public B setOrderedLoads(boolean orderedLoads) {
+        options.setOrderedLoads(orderedLoads);
+        return self();
+    }
+
+    public B setBatchMaxBytes(long batchMaxBytes) {
+        options.setBatchMaxBytes(batchMaxBytes);
+        return self();
+    }
+
+    public B setBufferMemoryBytes(long bufferMemoryBytes) {
+        options.setBufferMemoryBytes(bufferMemoryBytes);
+        return self();
+    }
+
+    public B setSpillDirectory(String spillDirectory) {
+        options.setSpillDirectory(spillDirectory);
+        return self();
+    }
+
+    public B setPendingMemoryBytes(long pendingMemoryBytes) {
+        options.setPendingMemoryBytes(pendingMemoryBytes);
+        return self();
+    }
+
+    public B setMaxSpillBytes(long maxSpillBytes) {
+        options.setMaxSpillBytes(maxSpillBytes);
+        return self();
+    }
+
+    public B setFlushIntervalMs(long flushIntervalMs) {
+        options.setFlushIntervalMs(flushIntervalMs);
+        return self();
+    }
+
+    public B setMaxConnections(int maxConnections) {
+        options.setMaxConnections(maxConnections);
+        return self();
+    }
+
+    public B setConnectTimeoutMs(int connectTimeoutMs) {
+        options.setConnectTimeoutMs(connectTimeoutMs);
+        return self();
+    }
+
+    public B setSocketTimeoutMs(int socketTimeoutMs) {
+        options.setSocketTimeoutMs(socketTimeoutMs);
+        return self();
+    }
+
+    public B setKeepAliveMs(long keepAliveMs) {
+        options.setKeepAliveMs(keepAliveMs);
+        return self();
+    }
+
+    public B setRedirectCacheTtlMs(long redirectCacheTtlMs) {
+        options.setRedirectCacheTtlMs(redirectCacheTtlMs);
+        return self();
+    }
+
+    public B setLoadBalanceStrategy(
+            StarRocksLoadBalanceStrategy loadBalanceStrategy) {
+        options.setLoadBalanceStrategy(loadBalanceStrategy);
+        return self();
+    }
+
+    public B setEndpointProbeIntervalMs(long endpointProbeIntervalMs) {
+        options.setEndpointProbeIntervalMs(endpointProbeIntervalMs);
+        return self();
+    }
+
+    public B setCompression(StarRocksCompression compression) {
+        options.setCompression(compression);
+        return self();
+    }
+
+    public B setFormat(StarRocksFormat format) {
+        options.setFormat(format);
+        return self();
+    }
+
+    public B setLabelPrefix(String labelPrefix) {
+        options.setLabelPrefix(labelPrefix);
+        return self();
+    }
+
+    public B setRetryPolicy(StarRocksRetryPolicy retryPolicy) {
+        options.setRetryPolicy(retryPolicy);
+        return self();
+    }
+
+    public B setAdaptiveBatching(boolean adaptiveBatching) {
+        options.setAdaptiveBatching(adaptiveBatching);
+        return self();
+    }
+
+    public B setTargetLoadTimeMs(long targetLoadTimeMs) {
+        options.setTargetLoadTimeMs(targetLoadTimeMs);
+        return self();
+    }
+
+    public B setMinBatchRows(int minBatchRows) {
+        options.setMinBatchRows(minBatchRows);
+        return self();
+    }
+
+    /**
+     * 设置一个Stream Load参数，作为header随每个批次发送
+     *
+     * @param key 如timeout、max_filter_ratio、strict_mode
+     * @param value
+     * @return
+     */
+    public B setProperty(String key, String value) {
+        options.getProperties().put(key, value);
+        return self();
+    }
+
+    public B setProperties(Map<String, String> properties) {
+        options.getProperties().putAll(properties);
+        return self();
+    }
+
+    /** 导入超时（秒），事务导入时在begin时作为事务超时发送 */
+    public B setLoadTimeoutSeconds(int timeoutSeconds) {
+        return setProperty("timeout", String.valueOf(timeoutSeconds));
+    }
+
+    /** 允许因数据质量被过滤的行比例，0到1之间 */
+    public B setMaxFilterRatio(double maxFilterRatio) {
+        return setProperty("max_filter_ratio", String.valueOf(maxFilterRatio));
+    }
+
+    /** 单个导入任务的内存上限（字节） */
+    public B setLoadMemLimit(long loadMemLimitBytes) {
+        return setProperty("load_mem_limit", String.valueOf(loadMemLimitBytes));
+    }
+
+    /**
+     * 部分列更新，columns只需包含主键和要更新的列，配合setProjection只序列化这些列
+     *
+     * @param partialUpdate
+     * @return
+     */
+    public B setPartialUpdate(boolean partialUpdate) {
+        return setProperty("partial_update", String.valueOf(partialUpdate));
+    }
+
+    /** 条件更新，新行该列的值不小于已有行时才更新 */
+    public B setMergeCondition(String column) {
+        return setProperty("merge_condition", column);
+    }
+
+    /**
+     * 按记录的RowKind写入或删除主键表中的行，Row和RowData携带RowKind，其他记录类型均为upsert
+     *
+     * <p>多个发送线程时需同时开启setOrderedLoads，保证同一主键的变更按顺序提交。
+     *
+     * @param upsert
+     * @return
+     */
+    public B setUpsert(boolean upsert) {
+        options.setUpsert(upsert);
+        return self();
+    }
+
+    public B setDeadLetterHandler(StarRocksDeadLetterHandler deadLetterHandler) {
+        options.setDeadLetterHandler(deadLetterHandler);
+        return self();
+    }
+
+    /** 被拒绝的行以JSON Lines写入该目录 */
+    public B setDeadLetterDirectory(String directory) {
+        options.setDeadLetterHandler(new StarRocksFileDeadLetterHandler(directory));
+        return self();
+    }
+
+    /**
+     * 一个批次中最多交给dead letter handler的行数比例，至少1行，超出时整批失败
+     *
+     * @param maxDeadLetterRatio 0到1之间
+     * @return
+     */
+    public B setMaxDeadLetterRatio(double maxDeadLetterRatio) {
+        options.setMaxDeadLetterRatio(maxDeadLetterRatio);
+        return self();
+    }
+
+    public B setFieldTypes(TypeInformation<?>... fieldTypes) {
+        options.setFieldTypes(fieldTypes);
+        return self();
+    }
+
+    public B setFieldNames(String... fieldNames) {
+        options.setFieldNames(fieldNames);
+        return self();
+    }
+
+    public B setProjection(int... fieldIndexes) {
+        options.setProjection(fieldIndexes);
+        return self();
+    }
+
+    public B setProjection(String... fieldNames) {
+        options.setProjectionNames(fieldNames);
+        return self();
+    }
+
+    public B setColumnExpressions(String... columnExpressions) {
+        options.setColumnExpressions(columnExpressions);
+        return self();
+    }
+
+    /** TIMESTAMP_LTZ、Instant和java.util.Date字段按该时区写为DATETIME，默认JVM时区；Table sink使用table.local-time-zone */
+    public B setTimeZone(ZoneId timeZone) {
+        options.setTimeZone(timeZone);
+        return self();
+    }
+
+    /**
+     * 校验配置
+     *
+     * @throws IllegalArgumentException 配置缺失或不合法时
+     */
+    protected void validate() {
+        if (StringUtils.isBlank(url)) {
+            throw new IllegalArgumentException("No database URL supplied.");
+        }
+
+        if (StringUtils.isBlank(username)) {
+            throw new IllegalArgumentException("No database username supplied.");
+        }
+
+        if (requiresTable() && StringUtils.isBlank(table)) {
+            throw new IllegalArgumentException("No database table supplied.");
+        }
+
+        if (!requiresTable() && table != null) {
+            throw new IllegalArgumentException("Tables are selected per record, setTable is not supported.");
+        }
+
+        if (ArrayUtils.isEmpty(columns)) {
+            throw new IllegalArgumentException("No database columns supplied.");
+        }
+
+        if (options.getMaxInFlightBatches() < 1) {
+            throw new IllegalArgumentException("Max in-flight batches must be positive.");
+        }
+
+        if (options.getSenderThreads() < 1
+                || options.getSenderThreads() > options.getMaxInFlightBatches()
+                || options.getSenderThreads() > options.getMaxConnections()) {
+            throw new IllegalArgumentException(
+                    "Sender threads must be positive and not exceed max in-flight batches or max connections.");
+        }
+
+        if (options.getBatchMaxBytes() < 0 || options.getFlushIntervalMs() < 0) {
+            throw new IllegalArgumentException("Batch max bytes and flush interval must not be negative.");
+        }
+
+        if (options.getBufferMemoryBytes() < 0) {
+            throw new IllegalArgumentException("Buffer memory bytes must not be negative.");
+        }
+
+        if (options.getPendingMemoryBytes() < 0 || options.getMaxSpillBytes() < 0) {
+            throw new IllegalArgumentException("Pending memory and spill bytes must not be negative.");
+        }
+
+        if (StringUtils.isNotBlank(options.getSpillDirectory()) && !options.isAsyncFlush()) {
+            throw new IllegalArgumentException("Spilling to disk requires async flush.");
+        }
+
+        if (options.getMaxConnections() < 1) {
+            throw new IllegalArgumentException("Max connections must be positive.");
+        }
+
+        if (options.getLoadBalanceStrategy() == null || options.getEndpointProbeIntervalMs() <= 0) {
+            throw new IllegalArgumentException("Invalid load balance settings.");
+        }
+
+        if (options.getCompression() == null) {
+            throw new IllegalArgumentException("No compression supplied, use NONE to disable it.");
+        }
+
+        if (options.getFormat() == null) {
+            throw new IllegalArgumentException("No format supplied.");
+        }
+
+        if (options.getRetryPolicy() == null) {
+            throw new IllegalArgumentException("No retry policy supplied.");
+        }
+
+        int[] projection = options.getProjection();
+        String[] projectionNames = options.getProjectionNames();
+        if ((projection != null && projection.length != columns.length)
+                || (projection == null && projectionNames != null && projectionNames.length != columns.length)) {
+            throw new IllegalArgumentException("Projection must select one field per column.");
+        }
+
+        if (options.getFieldTypes() != null
+                && projection == null
+                && projectionNames == null
+                && options.getFieldTypes().length != columns.length) {
+            throw new IllegalArgumentException("Field types must match the columns.");
+        }
+
+        if (options.getTargetLoadTimeMs() <= 0 || options.getMinBatchRows() < 1) {
+            throw new IllegalArgumentException("Invalid adaptive batching settings.");
+        }
+
+        validateProperties(options, columns);
+
+        if (options.getMaxDeadLetterRatio() < 0 || options.getMaxDeadLetterRatio() > 1) {
+            throw new IllegalArgumentException("Max dead letter ratio must be between 0 and 1.");
+        }
+
+        // 同一主键的upsert和delete分布在不同批次，批次并发提交时后写入的可能被先写入的覆盖
+        if (options.isUpsert() && options.getSenderThreads() > 1 && !options.isOrderedLoads()) {
+            throw new IllegalArgumentException("Upsert mode with several sender threads requires ordered loads.");
+        }
+    }
+
+    /**
+     * 校验properties和upsert设置
+     *
+     * @param options
+     * @param columns 导入列
+     */
+    private static void validateProperties(StarRocksLoadOptions options, String[] columns) {
+        for (Map.Entry<String, String> property : options.getProperties().entrySet()) {
+            if (StringUtils.isBlank(property.getKey()) || property.getValue() == null) {
+                throw new IllegalArgumentException("Stream load properties must have a key and a value.");
+            }
+            for (String reserved : RESERVED_PROPERTIES) {
+                if (reserved.equalsIgnoreCase(property.getKey())) {
+                    throw new IllegalArgumentException(
+                            "Stream load property " + property.getKey() + " is set by the connector.");
+                }
+            }
+        }
+
+        String maxFilterRatio = options.getProperties().get("max_filter_ratio");
+        if (maxFilterRatio != null) {
+            double ratio;
+            try {
+                ratio = Double.parseDouble(maxFilterRatio);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid max_filter_ratio " + maxFilterRatio, e);
+            }
+            if (ratio < 0 || ratio > 1) {
+                throw new IllegalArgumentException("Max filter ratio must be between 0 and 1.");
+            }
+        }
+
+        if (options.isUpsert() && ArrayUtils.contains(columns, StreamLoadColumnMapping.OP_COLUMN)) {
+            throw new IllegalArgumentException("The __op column is written by upsert mode, remove it from columns.");
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package starrocks;
+
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** StarRocks Stream Load 可选调优参数，由各OutputFormat的Builder填充 */
+@Data
+public class StarRocksLoadOptions implements Serializable {
+
+    /** 默认最大在途批次数 */
+    static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 2;
+    /** 默认连接池大小 */
+    static final int DEFAULT_MAX_CONNECTIONS = 8;
+    /** 默认连接超时（毫秒） */
+    static final int DEFAULT_CONNECT_TIMEOUT_MS = 30 * 1000;
+    /** 默认空闲连接保活时长（毫秒） */
+    static final long DEFAULT_KEEP_ALIVE_MS = 60 * 1000;
+    /** 默认被拉黑节点的探测间隔（毫秒） */
+    static final long DEFAULT_ENDPOINT_PROBE_INTERVAL_MS = 10 * 1000;
+    /** 默认堆内待发送批次的内存预算 */
+    static final long DEFAULT_PENDING_MEMORY_BYTES = 256L * 1024 * 1024;
+    /** 默认目标单次导入耗时（毫秒） */
+    static final long DEFAULT_TARGET_LOAD_TIME_MS = 3 * 1000;
+    /** 默认自适应批次行数下限 */
+    static final int DEFAULT_MIN_BATCH_ROWS = 500;
+    /** 默认被拒绝行的比例上限 */
+    static final double DEFAULT_MAX_DEAD_LETTER_RATIO = 0.1D;
+    /** 序列化版本号 */
+    private static final long serialVersionUID = 1L;
+
+    /** 是否异步刷写，开启后由后台线程发送批次，任务线程继续攒批 */
+    private boolean asyncFlush = false;
+
+    /** 异步刷写时最大在途批次数，超过后writeRecord阻塞形成反压 */
+    private int maxInFlightBatches = DEFAULT_MAX_IN_FLIGHT_BATCHES;
+
+    /** 异步刷写时的发送线程数，多个批次可同时导入 */
+    private int senderThreads = 1;
+
+    /** 多个发送线程时是否保证同一张表的批次按生成顺序导入，开启后只有不同表的批次并发导入，主键表依赖写入顺序时开启 */
+    private boolean orderedLoads = false;
+
+    /** 批次最大字节数，达到后立即刷写，0表示不限制 */
+    private long batchMaxBytes = 0;
+
+    /** 所有目标表缓冲区合计的最大字节数，超出时先刷写最大的缓冲区，0表示不限制 */
+    private long bufferMemoryBytes = 0;
+
+    /** 溢写目录，异步刷写时堆内待发送批次超出pendingMemoryBytes后溢写到该目录，为null时不溢写而是阻塞等待 */
+    private String spillDirectory;
+
+    /** 堆内待发送批次的内存预算，超出后新的批次溢写到spillDirectory */
+    private long pendingMemoryBytes = DEFAULT_PENDING_MEMORY_BYTES;
+
+    /** 溢写文件总字节数上限，达到后恢复为阻塞等待，0表示不限制 */
+    private long maxSpillBytes = 0;
+
+    /** 定时刷写间隔（毫秒），0表示不定时刷写 */
+    private long flushIntervalMs = 0;
+
+    /** HTTP连接池大小 */
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+    /** 建立连接及从连接池获取连接的超时（毫秒） */
+    private int connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT_MS;
+
+    /** 读取响应的超时（毫秒），0表示不超时，由StarRocks自身的导入超时控制 */
+    private int socketTimeoutMs = 0;
+
+    /** 空闲连接保活时长（毫秒） */
+    private long keepAliveMs = DEFAULT_KEEP_ALIVE_MS;
+
+    /** FE重定向到BE的目标缓存时长（毫秒），0表示每次都经过FE */
+    private long redirectCacheTtlMs = 0;
+
+    /** 配置多个FE/BE地址时的负载均衡策略 */
+    private StarRocksLoadBalanceStrategy loadBalanceStrategy = StarRocksLoadBalanceStrategy.ROUND_ROBIN;
+
+    /** 被拉黑节点的健康检查间隔（毫秒） */
+    private long endpointProbeIntervalMs = DEFAULT_ENDPOINT_PROBE_INTERVAL_MS;
+
+    /** 请求体压缩方式 */
+    private StarRocksCompression compression = StarRocksCompression.NONE;
+
+    /** 数据格式 */
+    private StarRocksFormat format = StarRocksFormat.CSV;
+
+    /** label前缀，为空时使用job id；每次启动再追加attempt number和随机串，重启后不会复用之前的label */
+    private String labelPrefix;
+
+    /** 导入失败后的重试策略 */
+    private StarRocksRetryPolicy retryPolicy = new ExponentialBackoffRetryPolicy();
+
+    /** 是否按导入耗时自适应调整批次行数和并发数，批次行数上限为batchInterval，并发上限为maxInFlightBatches */
+    private boolean adaptiveBatching = false;
+
+    /** 自适应调整的目标单次导入耗时（毫秒） */
+    private long targetLoadTimeMs = DEFAULT_TARGET_LOAD_TIME_MS;
+
+    /** 自适应调整的批次行数下限 */
+    private int minBatchRows = DEFAULT_MIN_BATCH_ROWS;
+
+    /** 原样作为header转发的Stream Load参数，如timeout、max_filter_ratio、partial_update、merge_condition、load_mem_limit */
+    private Map<String, String> properties = new LinkedHashMap<>();
+
+    /** 是否按记录的RowKind写出__op列，INSERT和UPDATE_AFTER为upsert，DELETE为删除，UPDATE_BEFORE不导入；仅用于主键表 */
+    private boolean upsert = false;
+
+    /** 被拒绝行的去向，设置后整批因数据质量失败时二分拆批定位坏行，其余行重新导入；为null时整批失败 */
+    private StarRocksDeadLetterHandler deadLetterHandler;
+
+    /** 一个批次中最多交给deadLetterHandler的行数比例，超出时整批失败，避免整批性的错误逐行拆分 */
+    private double maxDeadLetterRatio = DEFAULT_MAX_DEAD_LETTER_RATIO;
+
+    /** 记录各字段的类型，用于生成按类型的字段写入器；为null时从输入类型推断，推断不出时按运行时类型写入 */
+    private TypeInformation<?>[] fieldTypes;
+
+    /** 记录各字段的名称，按字段名选择字段时使用；为null时从输入类型推断 */
+    private String[] fieldNames;
+
+    /** 与columns一一对应的记录字段位置，为null时按位置写出 */
+    private int[] projection;
+
+    /** 与columns一一对应的记录字段名，projection为null时生效 */
+    private String[] projectionNames;
+
+    /** 派生列表达式，如dt=from_unixtime(ts)，追加到columns header由StarRocks计算 */
+    private String[] columnExpressions;
+
+    /** TIMESTAMP_LTZ、Instant和java.util.Date转换为DATETIME使用的时区，为null时使用JVM默认时区 */
+    private ZoneId timeZone;
+
+    /** 实际使用的时区 */
+    ZoneId resolveTimeZone() {
+        return timeZone != null ? timeZone : ZoneId.systemDefault();
+    }
+}
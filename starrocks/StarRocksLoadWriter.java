@@ -0,0 +1,1113 @@
+package starrocks;
+
+import org.apache.flink.api.common.accumulators.LongCounter;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.CompositeType;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.types.RowKind;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 攒批和Stream Load发送的核心流程，与Flink的接入方式无关
+ *
+ * <p>OutputFormat、Sink V2 writer和Table sink都委托给本类，记录字段通过StarRocksRecordAccessor读取，
+ * 目标表由构造时指定或按记录选择。write、flush和close由同一个任务线程调用，定时刷写线程通过当前对象的锁与其互斥。
+ *
+ * @param <IT> 记录类型
+ */
+class StarRocksLoadWriter<IT> implements Serializable {
+
+    /** 默认批次大小 */
+    static final int DEFAULT_FLUSH_MAX_SIZE = 5000;
+    /** 查询label状态的最大次数 */
+    private static final int LOAD_STATE_MAX_POLLS = 30;
+    /** 查询label状态的间隔（毫秒） */
+    private static final long LOAD_STATE_POLL_INTERVAL_MS = 1000;
+    /** 序列化版本号 */
+    private static final long serialVersionUID = 1L;
+    /** 日志log */
+    private static final Logger LOG = LoggerFactory.getLogger(StarRocksLoadWriter.class);
+    /** FE/BE的HTTP地址，多个以逗号分隔 */
+    private final String url;
+    /** 数据库用户名 */
+    private final String username;
+    /** 数据库密码 */
+    private final String password;
+    /** 数据库链接url */
+    private final String database;
+    /** 表名，按记录路由时为null */
+    private final String table;
+    /** 数据库密码 */
+    private final String[] columns;
+    /** 批次大小 */
+    private final int batchInterval;
+    /** 字段读取 */
+    private final StarRocksRecordAccessor<IT> accessor;
+    /** 目标表选择，为null时写入table */
+    private final StarRocksTableSelector<IT> tableSelector;
+    /** 列分隔符 */
+    private final String columnSeperator = "\t";
+
+    /** 行分隔符 */
+    private final String lineSeperator = "\n";
+
+    /** 记录序列化方式 */
+    private transient StreamLoadSerializer serializer;
+
+    /** 各目标表正在攒批的缓冲区 */
+    private transient Map<String, Destination> destinations;
+
+    /** 各目标表缓冲区合计的字节数 */
+    private transient long bufferedBytes;
+
+    /** 已发送完成、可复用的缓冲区 */
+    private transient Queue<StreamLoadBuffer> freeBuffers;
+
+    /** 累加器记录失败数量 */
+    final LongCounter sendCounter = new LongCounter();
+
+    /** 累加器记录失败数量 */
+    final LongCounter importedCounter = new LongCounter();
+
+    /** 累加器记录导入成功批次的原始字节数 */
+    final LongCounter rawBytesCounter = new LongCounter();
+
+    /** 累加器记录导入成功批次实际发送的字节数，开启压缩时为压缩后字节数 */
+    final LongCounter sentBytesCounter = new LongCounter();
+
+    /** 累加器记录压缩耗时（毫秒） */
+    final LongCounter compressTimeCounter = new LongCounter();
+
+    private transient StreamLoadClient client;
+
+    /** 可选调优参数 */
+    private final StarRocksLoadOptions options;
+
+    /** DataSet传入的输入类型，未显式指定fieldTypes和fieldNames时据此推断 */
+    private TypeInformation<?> inputType;
+
+    /** 记录字段到导入列的映射 */
+    private transient StreamLoadColumnMapping columnMapping;
+
+    /** 异步发送线程 */
+    private transient ExecutorService flushExecutor;
+
+    /** 在途批次许可，控制异步发送的反压 */
+    private transient AdjustableSemaphore inFlightBatches;
+
+    /** 堆内待发送批次的字节数 */
+    private transient AtomicLong pendingBytes;
+
+    /** 待发送批次的磁盘溢写，未配置溢写目录时为null */
+    private transient StreamLoadSpillStore spillStore;
+
+    /** 自适应批次控制，未开启时为null */
+    private transient AdaptiveBatchController adaptiveBatching;
+
+    /** 导入链路指标 */
+    private transient StreamLoadMetrics metrics;
+
+    /** 定时刷写线程 */
+    private transient ScheduledExecutorService flushScheduler;
+
+    /** 已提交、尚未发送完成的批次数 */
+    private transient AtomicInteger pendingBatches;
+
+    /** 异步发送或定时刷写过程中的异常，在下一次writeRecord或close时抛出 */
+    private transient volatile Exception flushException;
+
+    /** 是否已关闭 */
+    private transient volatile boolean closed;
+
+    /** label前缀 */
+    private transient String labelPrefix;
+
+    /** 当前并行实例序号 */
+    private transient int taskNumber;
+
+    /** 被拒绝行的去向，为null时整批失败 */
+    private transient StarRocksDeadLetterHandler deadLetterHandler;
+
+    /**
+     * StarRocksLoadWriter
+     *
+     * @param url
+     * @param username
+     * @param password
+     * @param database
+     * @param table 按记录路由时为null
+     * @param columns
+     * @param batchInterval
+     * @param options
+     * @param accessor
+     * @param tableSelector 为null时所有记录写入table
+     */
+    StarRocksLoadWriter(
+            String url,
+            String username,
+            String password,
+            String database,
+            String table,
+            String[] columns,
+            int batchInterval,
+            StarRocksLoadOptions options,
+            StarRocksRecordAccessor<IT> accessor,
+            StarRocksTableSelector<IT> tableSelector) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.database = database;
+        this.table = table;
+        this.columns = columns;
+        this.batchInterval = batchInterval;
+        this.options = options;
+        this.accessor = accessor;
+        this.tableSelector = tableSelector;
+    }
+
+    /**
+     * 记录输入类型，Row、Tuple和POJO等复合类型可据此推断各列类型
+     *
+     * @param type
+     */
+    void setInputType(TypeInformation<?> type) {
+        this.inputType = type;
+    }
+
+    /**
+     * 复合类型各字段的类型
+     *
+     * @param type
+     * @return
+     */
+    static TypeInformation<?>[] fieldTypesOf(CompositeType<?> type) {
+        TypeInformation<?>[] fieldTypes = new TypeInformation<?>[type.getArity()];
+        for (int i = 0; i < fieldTypes.length; i++) {
+            fieldTypes[i] = type.getTypeAt(i);
+        }
+        return fieldTypes;
+    }
+
+    /**
+     * 创建连接池、序列化器和发送线程
+     *
+     * @param taskNumber 并行实例序号
+     * @param labelPrefix label前缀，同一作业的各并行实例相同
+     * @param metricGroup 指标注册的位置
+     * @throws IOException
+     */
+    void open(int taskNumber, String labelPrefix, MetricGroup metricGroup) throws IOException {
+        client = new StreamLoadClient(url, options, taskNumber);
+        this.labelPrefix = labelPrefix;
+        this.taskNumber = taskNumber;
+
+        columnMapping =
+                StreamLoadColumnMapping.create(
+                        columns,
+                        options,
+                        options.getFieldNames() != null ? options.getFieldNames() : accessor.getFieldNames(inputType));
+        TypeInformation<?>[] fieldTypes =
+                columnMapping.serializedTypes(
+                        columnMapping.project(
+                                options.getFieldTypes() != null
+                                        ? options.getFieldTypes()
+                                        : accessor.getFieldTypes(inputType)));
+        String[] serializedColumns = columnMapping.getSerializedColumns();
+        serializer =
+                options.getFormat() == StarRocksFormat.JSON
+                        ? new JsonStreamLoadSerializer(serializedColumns, fieldTypes, options.resolveTimeZone())
+                        : new CsvStreamLoadSerializer(
+                                columnSeperator,
+                                lineSeperator,
+                                fieldTypes,
+                                serializedColumns.length,
+                                options.resolveTimeZone());
+        freeBuffers = new ConcurrentLinkedQueue<>();
+        destinations = new ConcurrentHashMap<>();
+        bufferedBytes = 0;
+        metrics = new StreamLoadMetrics(metricGroup, this::bufferFillRatio);
+        pendingBatches = new AtomicInteger();
+        deadLetterHandler = options.getDeadLetterHandler();
+        if (deadLetterHandler != null) {
+            deadLetterHandler.open(taskNumber);
+        }
+
+        if (options.isAsyncFlush()) {
+            AtomicInteger senderIndex = new AtomicInteger();
+            flushExecutor =
+                    Executors.newFixedThreadPool(
+                            options.getSenderThreads(),
+                            runnable -> {
+                                Thread thread =
+                                        new Thread(
+                                                runnable,
+                                                "starrocks-sender-" + taskNumber + "-" + senderIndex.getAndIncrement());
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+            inFlightBatches = new AdjustableSemaphore(options.getMaxInFlightBatches());
+            pendingBytes = new AtomicLong();
+            if (StringUtils.isNotBlank(options.getSpillDirectory())) {
+                spillStore =
+                        new StreamLoadSpillStore(
+                                options.getSpillDirectory(),
+                                "starrocks-" + labelPrefix + "-" + taskNumber + "-",
+                                options.getMaxSpillBytes());
+            }
+        }
+
+        if (options.isAdaptiveBatching()) {
+            adaptiveBatching =
+                    new AdaptiveBatchController(
+                            options.getTargetLoadTimeMs(),
+                            options.getMinBatchRows(),
+                            batchInterval,
+                            options.getMaxInFlightBatches());
+        }
+
+        if (options.getFlushIntervalMs() > 0) {
+            flushScheduler =
+                    Executors.newSingleThreadScheduledExecutor(
+                            runnable -> {
+                                Thread thread = new Thread(runnable, "starrocks-flush-timer-" + taskNumber);
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+            flushScheduler.scheduleWithFixedDelay(
+                    () -> {
+                        synchronized (StarRocksLoadWriter.this) {
+                            if (closed || flushException != null) {
+                                return;
+                            }
+                            try {
+                                flush();
+                            } catch (Exception e) {
+                                LOG.error("Scheduled starrocks flush failed", e);
+                                flushException = e;
+                            }
+                        }
+                    },
+                    options.getFlushIntervalMs(),
+                    options.getFlushIntervalMs(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 写入一条记录，满足批次条件时刷写
+     *
+     * @param record
+     * @throws IOException
+     */
+    synchronized void write(IT record) throws IOException {
+        checkFlushException();
+
+        // 主键表按主键覆盖，UPDATE_AFTER已包含更新后的整行，UPDATE_BEFORE无需导入
+        if (columnMapping.isUpsert() && accessor.getRowKind(record) == RowKind.UPDATE_BEFORE) {
+            return;
+        }
+
+        Destination destination = destination(record);
+        if (destination.buffer == null) {
+            destination.buffer = takeFreeBuffer();
+        }
+        StreamLoadBuffer buffer = destination.buffer;
+        if (buffer.isEmpty()) {
+            destination.firstRowTime = System.currentTimeMillis();
+        }
+
+        int sizeBefore = buffer.size();
+        long start = System.nanoTime();
+        try {
+            serializer.beginRecord(buffer);
+            serializeRecord(record);
+            serializer.endRecord();
+        } catch (IOException | RuntimeException e) {
+            // 转换或读取字段失败时丢弃写了一半的记录，缓冲区中已有的记录仍可正常发送
+            buffer.truncate(sizeBefore);
+            serializer.abortRecord();
+            throw e;
+        }
+        buffer.endRow();
+        destination.serializeNanos += System.nanoTime() - start;
+        bufferedBytes += buffer.size() - sizeBefore;
+
+        if (buffer.getRowCount() >= currentBatchRows()
+                || (options.getBatchMaxBytes() > 0 && buffer.size() >= options.getBatchMaxBytes())) {
+            flush(destination);
+        }
+
+        // 超出总内存预算时优先刷写最大的缓冲区，大小相同时刷写最早开始攒批的
+        while (options.getBufferMemoryBytes() > 0 && bufferedBytes > options.getBufferMemoryBytes()) {
+            Destination largest = largestDestination();
+            if (largest == null) {
+                break;
+            }
+            flush(largest);
+        }
+    }
+
+    private Destination destination(IT record) throws IOException {
+        String target = tableSelector != null ? tableSelector.selectTable(record) : table;
+        if (StringUtils.isBlank(target)) {
+            // 不带记录内容，避免行数据进入日志和异常
+            throw new IOException(
+                    String.format(
+                            "Table selector %s selected no starrocks table for a %s record with %d fields",
+                            tableSelector.getClass().getName(),
+                            record.getClass().getName(),
+                            accessor.getArity(record)));
+        }
+
+        Destination destination = destinations.get(target);
+        if (destination == null) {
+            // 路由模式下label中带上表的序号而不是表名，表名可以包含下划线，不同的表、实例和批次序号可能拼出相同的label
+            String labelBase =
+                    target.equals(table)
+                            ? labelPrefix + "_" + taskNumber + "_"
+                            : labelPrefix + "_" + taskNumber + "_t" + destinations.size() + "_";
+            destination = new Destination(target, labelBase);
+            destinations.put(target, destination);
+        }
+        return destination;
+    }
+
+    private Destination largestDestination() {
+        Destination largest = null;
+        for (Destination destination : destinations.values()) {
+            StreamLoadBuffer buffer = destination.buffer;
+            if (buffer == null || buffer.isEmpty()) {
+                continue;
+            }
+            if (largest == null
+                    || buffer.size() > largest.buffer.size()
+                    || (buffer.size() == largest.buffer.size() && destination.firstRowTime < largest.firstRowTime)) {
+                largest = destination;
+            }
+        }
+        return largest;
+    }
+
+    /** 当前批次行数阈值 */
+    private int currentBatchRows() {
+        return adaptiveBatching != null ? adaptiveBatching.getBatchRows() : batchInterval;
+    }
+
+    /** 最满的缓冲区的填充程度，由指标线程读取，不加锁 */
+    private double bufferFillRatio() {
+        int maxRows = 0;
+        for (Destination destination : destinations.values()) {
+            StreamLoadBuffer current = destination.buffer;
+            if (current != null) {
+                maxRows = Math.max(maxRows, current.getRowCount());
+            }
+        }
+        return (double) maxRows / currentBatchRows();
+    }
+
+    /**
+     * 记录按字段交给序列化器写入当前缓冲区，upsert模式下最后写出__op列
+     *
+     * @param record
+     * @throws IOException
+     */
+    private void serializeRecord(IT record) throws IOException {
+        if (columnMapping.isIdentity()) {
+            int arity = accessor.getArity(record);
+            for (int i = 0; i < arity; i++) {
+                serializer.writeField(i, accessor.getField(record, i));
+            }
+        } else {
+            for (int i = 0; i < columnMapping.getArity(); i++) {
+                serializer.writeField(i, accessor.getField(record, columnMapping.getFieldIndex(i)));
+            }
+        }
+
+        if (columnMapping.isUpsert()) {
+            serializer.writeField(
+                    columnMapping.getArity(),
+                    accessor.getRowKind(record) == RowKind.DELETE
+                            ? StreamLoadColumnMapping.OP_DELETE
+                            : StreamLoadColumnMapping.OP_UPSERT);
+        }
+    }
+
+    /**
+     * 刷写所有目标表的缓冲区并等待在途批次发送完成，checkpoint前调用以保证之前的记录已导入
+     *
+     * @throws IOException
+     */
+    synchronized void flushAndWait() throws IOException {
+        checkFlushException();
+        flush();
+        awaitPendingBatches();
+        checkFlushException();
+    }
+
+    /**
+     * 等待已提交的批次全部发送结束
+     *
+     * @throws IOException
+     */
+    private void awaitPendingBatches() throws IOException {
+        synchronized (pendingBatches) {
+            while (pendingBatches.get() > 0) {
+                try {
+                    pendingBatches.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for in-flight starrocks loads", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 刷写所有目标表的缓冲区，调用方需持有当前对象的锁
+     *
+     * @throws IOException
+     */
+    private void flush() throws IOException {
+        if (destinations == null) {
+            return;
+        }
+        for (Destination destination : destinations.values()) {
+            flush(destination);
+        }
+    }
+
+    /**
+     * 将目标表当前批次交给发送方，同步模式下直接发送，异步模式下提交到后台线程
+     *
+     * <p>行数、字节数、内存预算和定时四种触发条件任一满足即调用，调用方需持有当前对象的锁。
+     * 发送后缓冲区归还到复用队列，目标表在下一条记录到来时再取，空闲的目标表不占用缓冲区。
+     *
+     * @param destination
+     * @throws IOException
+     */
+    private void flush(Destination destination) throws IOException {
+        if (destination.buffer == null || destination.buffer.isEmpty()) {
+            return;
+        }
+
+        final StreamLoadBuffer batch = destination.buffer;
+        // 堆内待发送批次超出内存预算或在途批次已满时溢写到磁盘，不阻塞任务线程；自适应批次调低并发后可用许可可能为负数
+        final boolean spill =
+                spillStore != null
+                        && (pendingBytes.get() + batch.size() > options.getPendingMemoryBytes()
+                                || inFlightBatches.availablePermits() <= 0)
+                        && spillStore.canSpill(batch.size());
+        if (flushExecutor != null && !spill) {
+            try {
+                inFlightBatches.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for in-flight starrocks load", e);
+            }
+        }
+
+        final String target = destination.table;
+        destination.buffer = null;
+        bufferedBytes -= batch.size();
+        serializer.endBatch(batch);
+        final String label = destination.labelBase + destination.batchSequence++;
+        metrics.recordSerialize(destination.serializeNanos);
+        destination.serializeNanos = 0;
+
+        metrics.batchStarted();
+        if (flushExecutor == null) {
+            try {
+                sendData(target, batch, label);
+            } finally {
+                batch.reset();
+                freeBuffers.offer(batch);
+                metrics.batchFinished();
+            }
+            return;
+        }
+
+        if (spill) {
+            final StreamLoadSpillStore.SpilledBatch spilled;
+            try {
+                spilled = spillStore.spill(batch);
+            } catch (IOException e) {
+                metrics.batchFinished();
+                throw e;
+            } finally {
+                batch.reset();
+                freeBuffers.offer(batch);
+            }
+            metrics.recordSpill();
+            pendingBatches.incrementAndGet();
+            // 溢写的批次留在磁盘上，拿到在途许可后才发送，同样受maxInFlightBatches限制
+            dispatch(
+                    destination,
+                    () -> {
+                        try {
+                            if (flushException == null) {
+                                sendData(target, spilled, label);
+                            }
+                        } catch (Exception e) {
+                            LOG.error("Async starrocks load failed", e);
+                            flushException = e;
+                        } finally {
+                            spilled.delete();
+                            metrics.batchFinished();
+                            releaseInFlight();
+                            batchDone();
+                        }
+                    },
+                    true);
+            return;
+        }
+
+        final int batchSize = batch.size();
+        pendingBytes.addAndGet(batchSize);
+        pendingBatches.incrementAndGet();
+        dispatch(
+                destination,
+                () -> {
+                    try {
+                        // 已有批次失败时不再发送后续批次，等待任务线程抛出异常
+                        if (flushException == null) {
+                            sendData(target, batch, label);
+                        }
+                    } catch (Exception e) {
+                        LOG.error("Async starrocks load failed", e);
+                        flushException = e;
+                    } finally {
+                        pendingBytes.addAndGet(-batchSize);
+                        batch.reset();
+                        freeBuffers.offer(batch);
+                        metrics.batchFinished();
+                        releaseInFlight();
+                        batchDone();
+                    }
+                },
+                false);
+    }
+
+    /**
+     * 把发送任务交给发送线程池，保证顺序时同一张表的批次串行发送，不同表之间仍可并发
+     *
+     * <p>需要等待许可的任务排队等待而不是在发送线程中阻塞，持有许可的批次排在其后时也不会互相等待。
+     *
+     * @param destination
+     * @param send
+     * @param awaitPermit 发送前是否先获取在途许可
+     */
+    private void dispatch(Destination destination, Runnable send, boolean awaitPermit) {
+        if (options.getSenderThreads() > 1 && options.isOrderedLoads()) {
+            CompletableFuture<Void> previous = destination.lastSend;
+            if (awaitPermit) {
+                previous = previous.thenCompose(ignored -> inFlightBatches.acquireAsync());
+            }
+            destination.lastSend = previous.thenRunAsync(send, flushExecutor);
+        } else if (awaitPermit) {
+            inFlightBatches.acquireAsync().thenRunAsync(send, flushExecutor);
+        } else {
+            flushExecutor.execute(send);
+        }
+    }
+
+    /** 归还在途许可，开启自适应批次时按当前并发调整许可总数 */
+    private void releaseInFlight() {
+        inFlightBatches.release();
+        if (adaptiveBatching != null) {
+            inFlightBatches.setMaxPermits(adaptiveBatching.getConcurrency());
+        }
+    }
+
+    /** 异步批次发送结束，唤醒等待的flushAndWait */
+    private void batchDone() {
+        synchronized (pendingBatches) {
+            if (pendingBatches.decrementAndGet() == 0) {
+                pendingBatches.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 取一个可复用的缓冲区，在途批次受许可数限制，因此缓冲区总数不超过maxInFlightBatches加目标表数
+     *
+     * @return
+     */
+    private StreamLoadBuffer takeFreeBuffer() {
+        StreamLoadBuffer free = freeBuffers.poll();
+        return free != null ? free : new StreamLoadBuffer();
+    }
+
+    /**
+     * 检查异步发送是否失败
+     *
+     * @throws IOException
+     */
+    private void checkFlushException() throws IOException {
+        if (flushException != null) {
+            throw new IOException("Writing records to starrocks failed.", flushException);
+        }
+    }
+
+    /**
+     * 向Starrocks发送数据，配置了dead letter handler时整批因数据质量被拒绝后拆批定位坏行
+     *
+     * @param table 目标表
+     * @param batch
+     * @param label 批次label，重试时保持不变
+     * @throws IOException
+     */
+    private void sendData(String table, StreamLoadBatch batch, String label) throws IOException {
+        synchronized (sendCounter) {
+            sendCounter.add(batch.getRowCount());
+        }
+
+        StreamLoadFailure rejected = load(table, batch, label);
+        if (rejected != null) {
+            // 拆分后的子批次会再次报告同一批坏行，只按原批次计数
+            metrics.recordFiltered(rejected.getResult());
+            LOG.warn("Stream load {} rejected, isolating bad rows of {}: {}", label, batch.getRowCount(), rejected);
+            // 列数不匹配、columns表达式错误等整批性的错误会让每一行都被拒绝，超出上限时整批失败，不逐行拆分
+            long limit = Math.max(1L, (long) (batch.getRowCount() * options.getMaxDeadLetterRatio()));
+            StreamLoadBuffer rows = batch.read();
+            handleRejected(table, rows, 0, rows.getRowCount(), label, rejected, new long[] {limit});
+        }
+    }
+
+    /**
+     * 二分被拒绝的行区间，各半分别导入，仍被拒绝的一半继续拆分，直到单行交给dead letter handler
+     *
+     * <p>子批次label在原label后追加_h0、_h1，字母前缀使其不会与批次序号组成的label相同，同一批次的重试中保持不变。k个坏行最多增加约2k·log(n)次导入。
+     * 被拒绝的行数超出上限时抛出异常，StarRocks报告的过滤行数已超出剩余额度时不再拆分。
+     *
+     * @param table
+     * @param source 原批次数据
+     * @param from 起始行，包含
+     * @param to 结束行，不包含
+     * @param label 该区间上一次导入的label
+     * @param failure 该区间上一次导入的失败信息
+     * @param remaining 还可交给dead letter handler的行数，各子区间共用
+     * @throws IOException 超出上限或导入失败时
+     */
+    private void handleRejected(
+            String table,
+            StreamLoadBuffer source,
+            int from,
+            int to,
+            String label,
+            StreamLoadFailure failure,
+            long[] remaining)
+            throws IOException {
+        StreamLoadResult result = failure.getResult();
+        long filtered = result != null && result.getNumberFilteredRows() != null ? result.getNumberFilteredRows() : 1;
+        if (filtered > remaining[0]) {
+            throw new IOException(
+                    String.format(
+                            "starrocks load %s rejected %d of %d rows, exceeding the dead letter limit: %s",
+                            label, filtered, to - from, failure));
+        }
+
+        if (to - from == 1) {
+            remaining[0]--;
+            String row =
+                    new String(source.array(), source.rowOffset(from), source.rowLength(from), StandardCharsets.UTF_8);
+            deadLetter(new StarRocksDeadLetter(table, label, row, rejectionReason(label, failure)));
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        loadRows(table, source, from, mid, label + "_h0", remaining);
+        loadRows(table, source, mid, to, label + "_h1", remaining);
+    }
+
+    private void loadRows(String table, StreamLoadBuffer source, int from, int to, String label, long[] remaining)
+            throws IOException {
+        StreamLoadBuffer part = takeFreeBuffer();
+        StreamLoadFailure rejected;
+        try {
+            for (int row = from; row < to; row++) {
+                serializer.appendRow(part, source, row);
+            }
+            serializer.endBatch(part);
+            rejected = load(table, part, label);
+        } finally {
+            part.reset();
+            freeBuffers.offer(part);
+        }
+
+        if (rejected != null) {
+            handleRejected(table, source, from, to, label, rejected, remaining);
+        }
+    }
+
+    /**
+     * 单行被拒绝的原因，优先取错误日志中的原因
+     *
+     * @param label
+     * @param failure
+     * @return
+     */
+    private String rejectionReason(String label, StreamLoadFailure failure) {
+        StreamLoadResult result = failure.getResult();
+        try {
+            List<StreamLoadErrorLog.Entry> entries =
+                    StreamLoadErrorLog.fetch(client, StreamLoadClient.basicAuthHeader(username, password), result);
+            if (!entries.isEmpty()) {
+                return entries.get(0).reason;
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Fetch error log of stream load {} failed: {}", label, e.getMessage());
+        }
+        return result != null ? result.getMessage() : failure.toString();
+    }
+
+    /**
+     * 导入成功但有被过滤的行时，按错误日志把这些行交给dead letter handler
+     *
+     * @param table
+     * @param label
+     * @param result
+     * @throws IOException handler处理失败时
+     */
+    private void deadLetterFiltered(String table, String label, StreamLoadResult result) throws IOException {
+        List<StreamLoadErrorLog.Entry> entries;
+        try {
+            entries = StreamLoadErrorLog.fetch(client, StreamLoadClient.basicAuthHeader(username, password), result);
+        } catch (IOException | RuntimeException e) {
+            // 其余行已导入，错误日志读取失败不影响任务
+            LOG.warn(
+                    "Fetch error log of stream load {} failed, {} filtered rows not captured: {}",
+                    label,
+                    result.getNumberFilteredRows(),
+                    e.getMessage());
+            return;
+        }
+
+        for (StreamLoadErrorLog.Entry entry : entries) {
+            deadLetter(new StarRocksDeadLetter(table, label, entry.row, entry.reason));
+        }
+        if (entries.size() < result.getNumberFilteredRows()) {
+            LOG.warn(
+                    "Stream load {} filtered {} rows, only {} captured from the error log",
+                    label,
+                    result.getNumberFilteredRows(),
+                    entries.size());
+        }
+    }
+
+    /**
+     * 交给dead letter handler，多个发送线程的调用在此串行化
+     *
+     * @param deadLetter
+     * @throws IOException
+     */
+    private void deadLetter(StarRocksDeadLetter deadLetter) throws IOException {
+        synchronized (deadLetterHandler) {
+            deadLetterHandler.handle(deadLetter);
+        }
+        metrics.recordDeadLetter();
+    }
+
+    /**
+     * 发送一个批次，按重试策略重试
+     *
+     * @param table 目标表
+     * @param batch
+     * @param label 批次label，重试时保持不变
+     * @return 导入成功时为null；配置了dead letter handler且整批因数据质量被拒绝时返回失败信息，不再重试
+     * @throws IOException 重试结束仍失败时
+     */
+    private StreamLoadFailure load(String table, StreamLoadBatch batch, String label) throws IOException {
+        final String loadPath = String.format("/api/%s/%s/_stream_load", database, table);
+        HttpPut put = new HttpPut();
+        StreamLoadEntity entity = new StreamLoadEntity(batch, options.getCompression());
+        put.setHeader(HttpHeaders.EXPECT, "100-continue");
+        put.setHeader(HttpHeaders.AUTHORIZATION, StreamLoadClient.basicAuthHeader(username, password));
+        // the label header is optional, not necessary
+        // use label header can ensure at most once semantics
+        put.setHeader("label", label);
+        put.setHeader("columns", columnMapping.getColumnsHeader());
+        serializer.setHeaders(put);
+        if (options.getCompression().getHeaderValue() != null) {
+            put.setHeader("compression", options.getCompression().getHeaderValue());
+        }
+        // timeout、max_filter_ratio、partial_update等Stream Load参数，连接器自己设置的header在builder中已被拒绝
+        options.getProperties().forEach(put::setHeader);
+        put.setEntity(entity);
+
+        final StarRocksRetryPolicy retryPolicy = options.getRetryPolicy();
+        final long startTime = System.currentTimeMillis();
+        int attempt = 0;
+        // 上一次请求结果不确定（超时、响应无法解析或同label任务仍在运行）时，重发或放弃前先查询label状态
+        boolean ambiguous = false;
+        StreamLoadResult loaded;
+        while (true) {
+            attempt++;
+
+            if (ambiguous && isLabelLoaded(label)) {
+                LOG.info("Stream load {} already committed, skip resending", label);
+                recordLoaded(entity, batch.getRowCount());
+                metrics.recordSuccess(null, batch.size(), batch.getRowCount());
+                return null;
+            }
+            ambiguous = false;
+
+            StreamLoadFailure failure;
+            final long requestStart = System.currentTimeMillis();
+            try (CloseableHttpResponse response = client.execute(loadPath, put)) {
+                final int statusCode = response.getStatusLine().getStatusCode();
+                metrics.recordHttp(System.currentTimeMillis() - requestStart);
+
+                // statusCode 200 just indicates that starrocks be service is ok, not stream load
+                // you should see the output content to find whether stream load is success
+                // 非200时响应通常不是JSON，保留原文用于报错；无法解析的200响应抛出StreamLoadResponseException，按结果不确定处理
+                StreamLoadResult result = null;
+                String loadResult = null;
+                if (statusCode == 200) {
+                    result = StreamLoadResponseReader.readResult(statusCode, response.getEntity());
+                } else if (response.getEntity() != null) {
+                    loadResult = EntityUtils.toString(response.getEntity());
+                }
+                // Publish Timeout表示事务已提交，只是尚未在超时时间内可见，数据不会丢失，按成功处理
+                final boolean publishTimeout =
+                        result != null && StreamLoadResult.STATUS_PUBLISH_TIMEOUT.equals(result.getStatus());
+                if (publishTimeout) {
+                    LOG.info("Stream load {} committed but not yet visible: {}", label, result.getMessage());
+                    if (adaptiveBatching != null) {
+                        adaptiveBatching.onPressure();
+                    }
+                }
+                if (result != null && (publishTimeout || StreamLoadResult.STATUS_SUCCESS.equals(result.getStatus()))) {
+                    recordLoaded(
+                            entity,
+                            result.getNumberLoadedRows() != null ? result.getNumberLoadedRows() : batch.getRowCount());
+                    metrics.recordSuccess(result, batch.size(), batch.getRowCount());
+                    if (adaptiveBatching != null && !publishTimeout) {
+                        long loadTimeMs =
+                                result.getLoadTimeMs() != null
+                                        ? result.getLoadTimeMs()
+                                        : System.currentTimeMillis() - requestStart;
+                        long loadBytes = result.getLoadBytes() != null ? result.getLoadBytes() : batch.size();
+                        adaptiveBatching.onSuccess(loadTimeMs, loadBytes, batch.getRowCount());
+                    }
+                    loaded = result;
+                    break;
+                }
+
+                if (result != null && StreamLoadResult.STATUS_LABEL_ALREADY_EXISTS.equals(result.getStatus())) {
+                    // 之前的请求已提交但响应丢失
+                    if (StreamLoadResult.EXISTING_JOB_STATUS_FINISHED.equals(result.getExistingJobStatus())) {
+                        LOG.info("Stream load {} already finished, treat as success", label);
+                        recordLoaded(entity, batch.getRowCount());
+                        metrics.recordSuccess(null, batch.size(), batch.getRowCount());
+                        return null;
+                    }
+                    ambiguous = true;
+                }
+                failure = StreamLoadFailure.ofResponse(statusCode, result, loadResult);
+                // 重发同一批数据只会得到同样的结果，交给调用方拆批
+                if (deadLetterHandler != null && StreamLoadErrorClassifier.isRejectedRows(result)) {
+                    return failure;
+                }
+            } catch (IOException exception) {
+                failure = StreamLoadFailure.ofException(exception);
+                ambiguous = true;
+            }
+
+            if (adaptiveBatching != null && StreamLoadErrorClassifier.isTransient(failure)) {
+                adaptiveBatching.onPressure();
+            }
+
+            long backoffMs = retryPolicy.nextBackoffMs(attempt, System.currentTimeMillis() - startTime, failure);
+            if (backoffMs < 0) {
+                // 最后一次请求结果不确定时，放弃前确认数据是否已导入
+                if (ambiguous && isLabelLoaded(label)) {
+                    LOG.info("Stream load {} already committed, not failing", label);
+                    recordLoaded(entity, batch.getRowCount());
+                    metrics.recordSuccess(null, batch.size(), batch.getRowCount());
+                    return null;
+                }
+                metrics.recordFiltered(failure.getResult());
+                throw new IOException(
+                        String.format(
+                                "starrocks load %s failed after %d attempts, last failure: %s", label, attempt, failure),
+                        failure.getException());
+            }
+
+            metrics.recordRetry();
+            LOG.warn(String.format("Stream load %s failed, retry in %dms: %s", label, backoffMs, failure));
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting to retry stream load " + label, e);
+            }
+        }
+
+        // 错误日志在导入响应关闭后读取，不同时占用两个连接
+        if (deadLetterHandler != null && loaded.getNumberFilteredRows() != null && loaded.getNumberFilteredRows() > 0) {
+            deadLetterFiltered(table, label, loaded);
+        }
+        return null;
+    }
+
+    /**
+     * 通过get_load_state查询label是否已导入，任务仍在进行时等待其结束
+     *
+     * @param label
+     * @return 已提交或可见时返回true，已中止、不存在或查询失败时返回false
+     * @throws IOException
+     */
+    private boolean isLabelLoaded(String label) throws IOException {
+        final String statePath = StreamLoadClient.loadStatePath(database, label);
+        for (int poll = 0; poll < LOAD_STATE_MAX_POLLS; poll++) {
+            HttpGet get = new HttpGet();
+            get.setHeader(HttpHeaders.AUTHORIZATION, StreamLoadClient.basicAuthHeader(username, password));
+
+            String state = null;
+            try (CloseableHttpResponse response = client.execute(statePath, get)) {
+                final int statusCode = response.getStatusLine().getStatusCode();
+                if (statusCode == 200) {
+                    state = StreamLoadResponseReader.readField(statusCode, response.getEntity(), "state");
+                }
+            } catch (IOException exception) {
+                LOG.warn("Query stream load state of {} failed: {}", label, exception.getMessage());
+                return false;
+            }
+
+            LOG.info("Stream load {} state is {}", label, state);
+            if ("VISIBLE".equals(state) || "COMMITTED".equals(state)) {
+                return true;
+            }
+            if (!"PREPARE".equals(state) && !"PREPARED".equals(state) && !"RUNNING".equals(state)) {
+                return false;
+            }
+
+            try {
+                Thread.sleep(LOAD_STATE_POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for stream load " + label, e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 记录导入成功的行数、批次的压缩比和压缩耗时，多个发送线程可能同时调用
+     *
+     * @param entity
+     * @param rows
+     */
+    private void recordLoaded(StreamLoadEntity entity, long rows) {
+        synchronized (importedCounter) {
+            importedCounter.add(rows);
+            rawBytesCounter.add(entity.getRawBytes());
+            sentBytesCounter.add(entity.getWrittenBytes());
+            compressTimeCounter.add(TimeUnit.NANOSECONDS.toMillis(entity.getCompressNanos()));
+        }
+
+        if (options.getCompression() != StarRocksCompression.NONE && LOG.isDebugEnabled()) {
+            double ratio =
+                    entity.getWrittenBytes() == 0 ? 0D : (double) entity.getRawBytes() / entity.getWrittenBytes();
+            LOG.debug(
+                    String.format(
+                            "Stream load batch compressed with %s, raw=%d compressed=%d ratio=%.2f time=%.3fms",
+                            options.getCompression(),
+                            entity.getRawBytes(),
+                            entity.getWrittenBytes(),
+                            ratio,
+                            entity.getCompressNanos() / 1_000_000D));
+        }
+    }
+
+    /**
+     * 刷写剩余数据，等待在途批次完成后释放资源
+     *
+     * @throws IOException
+     */
+    synchronized void close() throws IOException {
+        closed = true;
+        if (flushScheduler != null) {
+            flushScheduler.shutdownNow();
+        }
+
+        try {
+            checkFlushException();
+            flush();
+
+            if (flushExecutor != null) {
+                // 按表串行的批次在前一个批次结束时才提交到线程池，因此先等待全部批次结束再关闭线程池
+                awaitPendingBatches();
+                flushExecutor.shutdown();
+                checkFlushException();
+            }
+        } finally {
+            if (flushExecutor != null) {
+                flushExecutor.shutdownNow();
+            }
+            if (spillStore != null) {
+                spillStore.close();
+            }
+            if (client != null) {
+                client.close();
+            }
+            if (deadLetterHandler != null) {
+                deadLetterHandler.close();
+            }
+        }
+    }
+
+    /** 一个目标表的攒批状态，只由持有当前对象锁的线程修改 */
+    private static final class Destination {
+
+        /** 表名 */
+        private final String table;
+
+        /** label中批次序号之前的部分 */
+        private final String labelBase;
+
+        /** 当前缓冲区，刷写后为null直到下一条记录到来 */
+        private volatile StreamLoadBuffer buffer;
+
+        /** 批次序号 */
+        private long batchSequence;
+
+        /** 当前批次累计的序列化耗时（纳秒） */
+        private long serializeNanos;
+
+        /** 当前批次第一条记录的写入时间 */
+        private long firstRowTime;
+
+        /** 最近提交的发送任务，保证顺序时后续批次排在其后 */
+        private CompletableFuture<Void> lastSend = CompletableFuture.completedFuture(null);
+
+        private Destination(String table, String labelBase) {
+            this.table = table;
+            this.labelBase = labelBase;
+        }
+    }
+}
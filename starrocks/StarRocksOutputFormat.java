@@ -0,0 +1,70 @@
+package starrocks;
+
+/**
+ * 通过StarRocksRecordAccessor读取任意记录类型的OutputFormat，如POJO和RowData
+ *
+ * <pre>
+ * StarRocksOutputFormat.buildOutputFormat(StarRocksRecordAccessor.forPojo(Event.class, "id", "name"))
+ *         .setColumns(new String[] {"id", "name"})
+ *         ...
+ * </pre>
+ *
+ * @param <IT> 记录类型
+ */
+public class StarRocksOutputFormat<IT> extends AbstractStarRocksOutputFormat<IT> {
+
+    /**
+     * StarRocksOutputFormat
+     *
+     * @param url
+     * @param username
+     * @param password
+     * @param database
+     * @param table
+     * @param columns
+     * @param batchInterval
+     * @param options
+     * @param accessor
+     */
+    public StarRocksOutputFormat(
+            String url,
+            String username,
+            String password,
+            String database,
+            String table,
+            String[] columns,
+            int batchInterval,
+            StarRocksLoadOptions options,
+            StarRocksRecordAccessor<IT> accessor) {
+        super(url, username, password, database, table, columns, batchInterval, options, accessor, null);
+    }
+
+    public static <IT> StarRocksOutputFormatBuilder<IT> buildOutputFormat(StarRocksRecordAccessor<IT> accessor) {
+        return new StarRocksOutputFormatBuilder<>(accessor);
+    }
+
+    public static class StarRocksOutputFormatBuilder<IT>
+            extends StarRocksLoadBuilder<StarRocksOutputFormatBuilder<IT>> {
+        /** 字段读取 */
+        private final StarRocksRecordAccessor<IT> accessor;
+
+        protected StarRocksOutputFormatBuilder(StarRocksRecordAccessor<IT> accessor) {
+            this.accessor = accessor;
+        }
+
+        @Override
+        protected StarRocksOutputFormatBuilder<IT> self() {
+            return this;
+        }
+
+        public StarRocksOutputFormat<IT> finish() {
+            if (accessor == null) {
+                throw new IllegalArgumentException("No record accessor supplied.");
+            }
+            validate();
+
+            return new StarRocksOutputFormat<>(
+                    url, username, password, database, table, columns, batchInterval, options, accessor);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package starrocks;
+
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.CompositeType;
+import org.apache.flink.api.java.tuple.Tuple;
+import org.apache.flink.api.java.typeutils.PojoTypeInfo;
+import org.apache.flink.api.java.typeutils.TypeExtractor;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.Row;
+import org.apache.flink.types.RowKind;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+
+/**
+ * 按位置读取记录字段
+ *
+ * @param <IT> 记录类型
+ */
+public interface StarRocksRecordAccessor<IT> extends Serializable {
+
+    /**
+     * 记录字段数
+     *
+     * @param record
+     * @return
+     */
+    int getArity(IT record);
+
+    /**
+     * 读取记录指定位置的字段
+     *
+     * @param record
+     * @param pos
+     * @return
+     */
+    Object getField(IT record, int pos);
+
+    /**
+     * 记录的变更类型，upsert模式下决定__op列，没有变更类型的记录均视为INSERT
+     *
+     * @param record
+     * @return
+     */
+    default RowKind getRowKind(IT record) {
+        return RowKind.INSERT;
+    }
+
+    /**
+     * 各字段的类型，未显式指定fieldTypes时用于生成字段写入器
+     *
+     * @param inputType DataSet传入的输入类型，其他接入方式为null
+     * @return 无法推断时返回null，按运行时类型写入
+     */
+    default TypeInformation<?>[] getFieldTypes(TypeInformation<?> inputType) {
+        return inputType instanceof CompositeType
+                ? StarRocksLoadWriter.fieldTypesOf((CompositeType<?>) inputType)
+                : null;
+    }
+
+    /**
+     * 各字段的名称，未显式指定fieldNames时用于按名称投影
+     *
+     * @param inputType DataSet传入的输入类型，其他接入方式为null
+     * @return 无法推断时返回null
+     */
+    default String[] getFieldNames(TypeInformation<?> inputType) {
+        return inputType instanceof CompositeType ? ((CompositeType<?>) inputType).getFieldNames() : null;
+    }
+
+    /** Row字段读取 */
+    static StarRocksRecordAccessor<Row> forRow() {
+        return RowAccessor.INSTANCE;
+    }
+
+    /** Tuple字段读取 */
+    static StarRocksRecordAccessor<Tuple> forTuple() {
+        return TupleAccessor.INSTANCE;
+    }
+
+    /**
+     * POJO字段读取，第i个字段为fieldNames[i]
+     *
+     * @param type POJO类
+     * @param fieldNames 字段名，包括父类中的字段
+     * @param <T>
+     * @return
+     */
+    static <T> StarRocksRecordAccessor<T> forPojo(Class<T> type, String... fieldNames) {
+        return new PojoAccessor<>(type, fieldNames);
+    }
+
+    /**
+     * RowData字段读取，直接返回内部数据结构，不转换为Row
+     *
+     * @param rowType
+     * @return
+     */
+    static StarRocksRecordAccessor<RowData> forRowData(RowType rowType) {
+        return new RowDataAccessor(rowType);
+    }
+
+    /** Row字段读取 */
+    final class RowAccessor implements StarRocksRecordAccessor<Row> {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final RowAccessor INSTANCE = new RowAccessor();
+
+        @Override
+        public int getArity(Row record) {
+            return record.getArity();
+        }
+
+        @Override
+        public Object getField(Row record, int pos) {
+            return record.getField(pos);
+        }
+
+        @Override
+        public RowKind getRowKind(Row record) {
+            return record.getKind();
+        }
+    }
+
+    /** Tuple字段读取 */
+    final class TupleAccessor implements StarRocksRecordAccessor<Tuple> {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final TupleAccessor INSTANCE = new TupleAccessor();
+
+        @Override
+        public int getArity(Tuple record) {
+            return record.getArity();
+        }
+
+        @Override
+        public Object getField(Tuple record, int pos) {
+            return record.getField(pos);
+        }
+    }
+
+    /** POJO字段读取，通过反射访问字段，Field在反序列化后按名称重新解析 */
+    final class PojoAccessor<T> implements StarRocksRecordAccessor<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Class<T> type;
+
+        private final String[] fieldNames;
+
+        private transient Field[] fields;
+
+        private PojoAccessor(Class<T> type, String[] fieldNames) {
+            if (fieldNames == null || fieldNames.length == 0) {
+                throw new IllegalArgumentException("No POJO fields supplied.");
+            }
+            this.type = type;
+            this.fieldNames = fieldNames;
+            resolveFields();
+        }
+
+        @Override
+        public int getArity(T record) {
+            return fieldNames.length;
+        }
+
+        @Override
+        public Object getField(T record, int pos) {
+            if (fields == null) {
+                resolveFields();
+            }
+            try {
+                return fields[pos].get(record);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot read field " + fieldNames[pos] + " of " + type.getName(), e);
+            }
+        }
+
+        /** 按字段名从POJO类型信息中取类型，顺序与fieldNames一致 */
+        @Override
+        public TypeInformation<?>[] getFieldTypes(TypeInformation<?> inputType) {
+            TypeInformation<?> pojoType = inputType != null ? inputType : TypeExtractor.createTypeInfo(type);
+            if (!(pojoType instanceof PojoTypeInfo)) {
+                return null;
+            }
+            TypeInformation<?>[] fieldTypes = new TypeInformation<?>[fieldNames.length];
+            for (int i = 0; i < fieldNames.length; i++) {
+                fieldTypes[i] = ((PojoTypeInfo<?>) pojoType).getTypeAt(fieldNames[i]);
+            }
+            return fieldTypes;
+        }
+
+        @Override
+        public String[] getFieldNames(TypeInformation<?> inputType) {
+            return fieldNames.clone();
+        }
+
+        private void resolveFields() {
+            Field[] resolved = new Field[fieldNames.length];
+            for (int i = 0; i < fieldNames.length; i++) {
+                resolved[i] = findField(fieldNames[i]);
+                resolved[i].setAccessible(true);
+            }
+            fields = resolved;
+        }
+
+        private Field findField(String name) {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                try {
+                    return current.getDeclaredField(name);
+                } catch (NoSuchFieldException e) {
+                    // 继续在父类中查找
+                }
+            }
+            throw new IllegalArgumentException("No field " + name + " in " + type.getName());
+        }
+    }
+
+    /** RowData字段读取，字段值为StringData、DecimalData、TimestampData等内部结构，由对应的字段写入器直接写出 */
+    final class RowDataAccessor implements StarRocksRecordAccessor<RowData> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RowType rowType;
+
+        private final RowData.FieldGetter[] getters;
+
+        private RowDataAccessor(RowType rowType) {
+            this.rowType = rowType;
+            this.getters = new RowData.FieldGetter[rowType.getFieldCount()];
+            for (int i = 0; i < getters.length; i++) {
+                getters[i] = RowData.createFieldGetter(rowType.getTypeAt(i), i);
+            }
+        }
+
+        @Override
+        public int getArity(RowData record) {
+            return record.getArity();
+        }
+
+        @Override
+        public Object getField(RowData record, int pos) {
+            return getters[pos].getFieldOrNull(record);
+        }
+
+        @Override
+        public RowKind getRowKind(RowData record) {
+            return record.getRowKind();
+        }
+
+        @Override
+        public TypeInformation<?>[] getFieldTypes(TypeInformation<?> inputType) {
+            TypeInformation<?>[] fieldTypes = new TypeInformation<?>[rowType.getFieldCount()];
+            for (int i = 0; i < fieldTypes.length; i++) {
+                fieldTypes[i] = InternalTypeInfo.of(rowType.getTypeAt(i));
+            }
+            return fieldTypes;
+        }
+
+        @Override
+        public String[] getFieldNames(TypeInformation<?> inputType) {
+            return rowType.getFieldNames().toArray(new String[0]);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package starrocks;
+
+import java.io.Serializable;
+
+/** Stream Load失败后的重试策略 */
+public interface StarRocksRetryPolicy extends Serializable {
+
+    /**
+     * 计算下次重试前的等待时间
+     *
+     * @param attempt 已失败的次数，从1开始
+     * @param elapsedMs 自第一次请求起经过的时间（毫秒）
+     * @param failure 最近一次失败的信息
+     * @return 等待时间（毫秒），小于0表示不再重试
+     */
+    long nextBackoffMs(int attempt, long elapsedMs, StreamLoadFailure failure);
+}
@@ -0,0 +1,77 @@
+package starrocks;
+
+/**
+ * 按记录路由到同库多张表的OutputFormat
+ *
+ * <p>每张目标表各有一个攒批缓冲区，批次行数和字节数限制按表生效；所有表共用一个HTTP连接池、发送线程和bufferMemoryBytes内存预算，
+ * 超出预算时先刷写最大的缓冲区。各表的导入列相同。
+ *
+ * @param <IT> 记录类型
+ */
+public class StarRocksRoutingOutputFormat<IT> extends AbstractStarRocksOutputFormat<IT> {
+
+    /**
+     * StarRocksRoutingOutputFormat
+     *
+     * @param url
+     * @param username
+     * @param password
+     * @param database
+     * @param columns
+     * @param batchInterval 每张表的批次大小
+     * @param options
+     * @param accessor
+     * @param tableSelector
+     */
+    public StarRocksRoutingOutputFormat(
+            String url,
+            String username,
+            String password,
+            String database,
+            String[] columns,
+            int batchInterval,
+            StarRocksLoadOptions options,
+            StarRocksRecordAccessor<IT> accessor,
+            StarRocksTableSelector<IT> tableSelector) {
+        super(url, username, password, database, null, columns, batchInterval, options, accessor, tableSelector);
+    }
+
+    public static <IT> StarRocksRoutingOutputFormatBuilder<IT> buildOutputFormat(
+            StarRocksRecordAccessor<IT> accessor, StarRocksTableSelector<IT> tableSelector) {
+        return new StarRocksRoutingOutputFormatBuilder<>(accessor, tableSelector);
+    }
+
+    public static class StarRocksRoutingOutputFormatBuilder<IT>
+            extends StarRocksLoadBuilder<StarRocksRoutingOutputFormatBuilder<IT>> {
+        /** 字段读取 */
+        private final StarRocksRecordAccessor<IT> accessor;
+        /** 目标表选择 */
+        private final StarRocksTableSelector<IT> tableSelector;
+
+        protected StarRocksRoutingOutputFormatBuilder(
+                StarRocksRecordAccessor<IT> accessor, StarRocksTableSelector<IT> tableSelector) {
+            this.accessor = accessor;
+            this.tableSelector = tableSelector;
+        }
+
+        @Override
+        protected StarRocksRoutingOutputFormatBuilder<IT> self() {
+            return this;
+        }
+
+        @Override
+        protected boolean requiresTable() {
+            return false;
+        }
+
+        public StarRocksRoutingOutputFormat<IT> finish() {
+            if (accessor == null || tableSelector == null) {
+                throw new IllegalArgumentException("No record accessor or table selector supplied.");
+            }
+            validate();
+
+            return new StarRocksRoutingOutputFormat<>(
+                    url, username, password, database, columns, batchInterval, options, accessor, tableSelector);
+        }
+    }
+}
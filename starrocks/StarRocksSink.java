@@ -0,0 +1,138 @@
+package starrocks;
+
+import org.apache.flink.api.connector.sink2.Sink;
+import org.apache.flink.api.connector.sink2.SinkWriter;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * DataStream的Sink V2接入，至少一次语义：checkpoint前刷写所有缓冲区并等待在途批次导入完成
+ *
+ * <pre>
+ * stream.sinkTo(StarRocksSink.buildSink(StarRocksRecordAccessor.forRow())
+ *         .setUrl("127.0.0.1:8030")
+ *         ...
+ *         .finish());
+ * </pre>
+ *
+ * @param <IT> 记录类型
+ */
+public class StarRocksSink<IT> implements Sink<IT> {
+
+    /** 序列化版本号 */
+    private static final long serialVersionUID = 1L;
+    /** FE/BE的HTTP地址，多个以逗号分隔 */
+    private final String url;
+    /** 数据库用户名 */
+    private final String username;
+    /** 数据库密码 */
+    private final String password;
+    /** 数据库名 */
+    private final String database;
+    /** 表名 */
+    private final String table;
+    /** 导入列 */
+    private final String[] columns;
+    /** 批次大小 */
+    private final int batchInterval;
+    /** 可选调优参数 */
+    private final StarRocksLoadOptions options;
+    /** 字段读取 */
+    private final StarRocksRecordAccessor<IT> accessor;
+
+    /**
+     * StarRocksSink
+     *
+     * @param url
+     * @param username
+     * @param password
+     * @param database
+     * @param table
+     * @param columns
+     * @param batchInterval
+     * @param options
+     * @param accessor
+     */
+    public StarRocksSink(
+            String url,
+            String username,
+            String password,
+            String database,
+            String table,
+            String[] columns,
+            int batchInterval,
+            StarRocksLoadOptions options,
+            StarRocksRecordAccessor<IT> accessor) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.database = database;
+        this.table = table;
+        this.columns = columns;
+        this.batchInterval = batchInterval;
+        this.options = options;
+        this.accessor = accessor;
+    }
+
+    /**
+     * 每个并行实例创建一个writer
+     *
+     * <p>流式作业的批次边界不可复现，label前缀带上随机串，重启后的批次不会与之前的批次冲突。
+     *
+     * @param context
+     * @return
+     * @throws IOException
+     */
+    @Override
+    public SinkWriter<IT> createWriter(InitContext context) throws IOException {
+        StarRocksLoadWriter<IT> writer =
+                new StarRocksLoadWriter<>(
+                        url,
+                        username,
+                        password,
+                        database,
+                        table,
+                        columns,
+                        batchInterval,
+                        options,
+                        accessor,
+                        null);
+        String labelPrefix =
+                (StringUtils.isNotBlank(options.getLabelPrefix()) ? options.getLabelPrefix() : "flink")
+                        + "_"
+                        + UUID.randomUUID().toString().replace("-", "");
+        writer.open(context.getSubtaskId(), labelPrefix, context.metricGroup());
+        return new StarRocksSinkWriter<>(writer);
+    }
+
+    public static <IT> StarRocksSinkBuilder<IT> buildSink(StarRocksRecordAccessor<IT> accessor) {
+        return new StarRocksSinkBuilder<>(accessor);
+    }
+
+    public static class StarRocksSinkBuilder<IT> extends StarRocksLoadBuilder<StarRocksSinkBuilder<IT>> {
+        /** 字段读取 */
+        private final StarRocksRecordAccessor<IT> accessor;
+
+        protected StarRocksSinkBuilder(StarRocksRecordAccessor<IT> accessor) {
+            this.accessor = accessor;
+        }
+
+        @Override
+        protected StarRocksSinkBuilder<IT> self() {
+            return this;
+        }
+
+        public StarRocksSink<IT> finish() {
+            if (accessor == null) {
+                throw new IllegalArgumentException("No record accessor supplied.");
+            }
+            validate();
+
+            return new StarRocksSink<>(
+                    url, username, password, database, table, columns, batchInterval, options, accessor);
+        }
+    }
+}
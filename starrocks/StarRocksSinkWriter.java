@@ -0,0 +1,41 @@
+package starrocks;
+
+import org.apache.flink.api.connector.sink2.SinkWriter;
+
+import java.io.IOException;
+
+/**
+ * Sink V2的writer，攒批和发送委托给StarRocksLoadWriter
+ *
+ * @param <IT> 记录类型
+ */
+class StarRocksSinkWriter<IT> implements SinkWriter<IT> {
+
+    /** 攒批和发送 */
+    private final StarRocksLoadWriter<IT> writer;
+
+    StarRocksSinkWriter(StarRocksLoadWriter<IT> writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void write(IT element, Context context) throws IOException {
+        writer.write(element);
+    }
+
+    /**
+     * checkpoint和输入结束时调用，返回后之前写入的记录都已导入
+     *
+     * @param endOfInput
+     * @throws IOException
+     */
+    @Override
+    public void flush(boolean endOfInput) throws IOException {
+        writer.flushAndWait();
+    }
+
+    @Override
+    public void close() throws Exception {
+        writer.close();
+    }
+}
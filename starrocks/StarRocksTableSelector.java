@@ -0,0 +1,20 @@
+package starrocks;
+
+import java.io.Serializable;
+
+/**
+ * 按记录选择写入的目标表
+ *
+ * @param <IT> 记录类型
+ */
+@FunctionalInterface
+public interface StarRocksTableSelector<IT> extends Serializable {
+
+    /**
+     * 记录写入的表名，表需位于OutputFormat配置的数据库中
+     *
+     * @param record
+     * @return
+     */
+    String selectTable(IT record);
+}
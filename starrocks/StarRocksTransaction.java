@@ -0,0 +1,25 @@
+package starrocks;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/** Stream Load事务，随Flink checkpoint持久化，用于故障恢复后提交或回滚 */
+@Data
+public class StarRocksTransaction implements Serializable {
+
+    /** 序列化版本号 */
+    private static final long serialVersionUID = 1L;
+
+    /** 事务label */
+    private String label;
+
+    /** 开启事务所用的FE/BE地址，同一事务的后续请求都发往该地址 */
+    private String address;
+
+    /** StarRocks事务ID */
+    private Long txnId;
+
+    /** 已写入的行数 */
+    private long loadedRows;
+}
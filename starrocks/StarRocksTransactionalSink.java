@@ -0,0 +1,478 @@
+package starrocks;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.base.VoidSerializer;
+import org.apache.flink.api.java.typeutils.runtime.kryo.KryoSerializer;
+import org.apache.flink.runtime.state.FunctionInitializationContext;
+import org.apache.flink.runtime.state.FunctionSnapshotContext;
+import org.apache.flink.streaming.api.functions.sink.TwoPhaseCommitSinkFunction;
+import org.apache.flink.types.RowKind;
+import org.apache.flink.util.FlinkRuntimeException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.UUID;
+
+/**
+ * 基于StarRocks事务导入接口的exactly-once Sink
+ *
+ * <p>每个checkpoint周期对应一个事务：攒满的批次通过/api/transaction/load写入当前事务，checkpoint时prepare，
+ * checkpoint完成后commit。label由label前缀、subtask和checkpoint id生成，故障恢复后会重新提交checkpoint中记录的事务。
+ *
+ * @param <IT> 记录类型
+ */
+public class StarRocksTransactionalSink<IT>
+        extends TwoPhaseCommitSinkFunction<IT, StarRocksTransaction, Void> {
+
+    /** 序列化版本号 */
+    private static final long serialVersionUID = 1L;
+    /** 日志log */
+    private static final Logger LOG = LoggerFactory.getLogger(StarRocksTransactionalSink.class);
+    /** 事务接口label已存在时的状态 */
+    private static final String STATUS_LABEL_ALREADY_EXISTS = "LABEL_ALREADY_EXISTS";
+    /** 只在begin时生效的事务参数：事务超时和空闲超时（秒） */
+    private static final String[] BEGIN_PROPERTIES = {"timeout", "idle_transaction_timeout"};
+    /** FE/BE的HTTP地址，多个以逗号分隔 */
+    private final String url;
+    /** 数据库用户名 */
+    private final String username;
+    /** 数据库密码 */
+    private final String password;
+    /** 数据库名 */
+    private final String database;
+    /** 表名 */
+    private final String table;
+    /** 导入列 */
+    private final String[] columns;
+    /** 单次load的批次大小 */
+    private final int batchInterval;
+    /** 可选调优参数 */
+    private final StarRocksLoadOptions options;
+    /** 字段读取 */
+    private final StarRocksRecordAccessor<IT> accessor;
+    /** label前缀，为空时使用job id */
+    private final String labelPrefix;
+
+    private transient StreamLoadClient client;
+
+    /** 记录序列化方式 */
+    private transient StreamLoadSerializer serializer;
+
+    /** 记录字段到导入列的映射 */
+    private transient StreamLoadColumnMapping columnMapping;
+
+    /** 当前事务尚未load的数据 */
+    private transient StreamLoadBuffer buffer;
+
+    /** 下一个事务所属的checkpoint id */
+    private transient long nextCheckpointId;
+
+    public StarRocksTransactionalSink(
+            String url,
+            String username,
+            String password,
+            String database,
+            String table,
+            String[] columns,
+            int batchInterval,
+            StarRocksLoadOptions options,
+            StarRocksRecordAccessor<IT> accessor,
+            String labelPrefix) {
+        super(new KryoSerializer<>(StarRocksTransaction.class, new ExecutionConfig()), VoidSerializer.INSTANCE);
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.database = database;
+        this.table = table;
+        this.columns = columns;
+        this.batchInterval = batchInterval;
+        this.options = options;
+        this.accessor = accessor;
+        this.labelPrefix = labelPrefix;
+    }
+
+    @Override
+    public void initializeState(FunctionInitializationContext context) throws Exception {
+        // initializeState先于open调用，恢复时就需要提交或回滚事务，因此在这里创建客户端
+        if (client == null) {
+            client = new StreamLoadClient(url, options, getRuntimeContext().getIndexOfThisSubtask());
+            columnMapping = StreamLoadColumnMapping.create(columns, options, options.getFieldNames());
+            TypeInformation<?>[] fieldTypes =
+                    columnMapping.serializedTypes(columnMapping.project(options.getFieldTypes()));
+            String[] serializedColumns = columnMapping.getSerializedColumns();
+            serializer =
+                    options.getFormat() == StarRocksFormat.JSON
+                            ? new JsonStreamLoadSerializer(serializedColumns, fieldTypes, options.resolveTimeZone())
+                            : new CsvStreamLoadSerializer(
+                                    "\t", "\n", fieldTypes, serializedColumns.length, options.resolveTimeZone());
+            buffer = new StreamLoadBuffer();
+        }
+        nextCheckpointId = context.getRestoredCheckpointId().orElse(0L) + 1;
+
+        super.initializeState(context);
+    }
+
+    @Override
+    public void snapshotState(FunctionSnapshotContext context) throws Exception {
+        // 当前事务在本次checkpoint中预提交，随后开启的新事务属于下一个checkpoint
+        nextCheckpointId = context.getCheckpointId() + 1;
+        super.snapshotState(context);
+    }
+
+    @Override
+    protected StarRocksTransaction beginTransaction() throws Exception {
+        String prefix =
+                StringUtils.isNotBlank(labelPrefix) ? labelPrefix : getRuntimeContext().getJobId().toHexString();
+        StarRocksTransaction transaction = new StarRocksTransaction();
+        transaction.setLabel(
+                String.format("%s_%d_%d", prefix, getRuntimeContext().getIndexOfThisSubtask(), nextCheckpointId));
+        transaction.setAddress(client.selectAddress());
+
+        StreamLoadResult result = executeTransaction(transaction, "begin", beginRequest());
+        if (STATUS_LABEL_ALREADY_EXISTS.equals(result.getStatus())) {
+            // 上次运行在该checkpoint之后开启、未进入状态的事务，回滚后重新开启
+            LOG.info("Transaction {} left over from a previous attempt, rolling it back", transaction.getLabel());
+            StreamLoadResult rollback = executeTransaction(transaction, "rollback", new HttpPost());
+            if (!StreamLoadResult.STATUS_OK.equals(rollback.getStatus())) {
+                // 从较早的savepoint恢复且label前缀固定时，该label可能已提交，无法回滚，换用新的label
+                String state = loadState(transaction);
+                if (!"VISIBLE".equals(state) && !"COMMITTED".equals(state)) {
+                    throw new IOException(
+                            String.format(
+                                    "Rolling back transaction %s failed, state=%s status=%s message=%s",
+                                    transaction.getLabel(), state, rollback.getStatus(), rollback.getMessage()));
+                }
+                String freshLabel =
+                        transaction.getLabel()
+                                + "_"
+                                + getRuntimeContext().getAttemptNumber()
+                                + "_"
+                                + UUID.randomUUID().toString().substring(0, 8);
+                LOG.info(
+                        "Transaction {} is already {}, beginning {} instead",
+                        transaction.getLabel(),
+                        state,
+                        freshLabel);
+                transaction.setLabel(freshLabel);
+            }
+            result = executeTransaction(transaction, "begin", beginRequest());
+        }
+        checkStatus(transaction, "begin", result);
+
+        transaction.setTxnId(result.getTxnId());
+        LOG.debug("Began starrocks transaction {} txnId={}", transaction.getLabel(), transaction.getTxnId());
+        return transaction;
+    }
+
+    @Override
+    protected void invoke(StarRocksTransaction transaction, IT value, Context context) throws Exception {
+        // 主键表按主键覆盖，UPDATE_BEFORE无需导入
+        if (columnMapping.isUpsert() && accessor.getRowKind(value) == RowKind.UPDATE_BEFORE) {
+            return;
+        }
+
+        int sizeBefore = buffer.size();
+        try {
+            serializer.beginRecord(buffer);
+            int arity = columnMapping.isIdentity() ? accessor.getArity(value) : columnMapping.getArity();
+            for (int i = 0; i < arity; i++) {
+                serializer.writeField(i, accessor.getField(value, columnMapping.getFieldIndex(i)));
+            }
+            if (columnMapping.isUpsert()) {
+                serializer.writeField(
+                        columnMapping.getArity(),
+                        accessor.getRowKind(value) == RowKind.DELETE
+                                ? StreamLoadColumnMapping.OP_DELETE
+                                : StreamLoadColumnMapping.OP_UPSERT);
+            }
+            serializer.endRecord();
+        } catch (IOException | RuntimeException e) {
+            // 丢弃写了一半的记录，不让它随事务中已缓冲的数据一起发送
+            buffer.truncate(sizeBefore);
+            serializer.abortRecord();
+            throw e;
+        }
+        buffer.endRow();
+
+        if (buffer.getRowCount() >= batchInterval
+                || (options.getBatchMaxBytes() > 0 && buffer.size() >= options.getBatchMaxBytes())) {
+            load(transaction);
+        }
+    }
+
+    @Override
+    protected void preCommit(StarRocksTransaction transaction) throws Exception {
+        load(transaction);
+        if (transaction.getLoadedRows() == 0) {
+            // 空事务无需提交
+            return;
+        }
+        checkStatus(transaction, "prepare", executeTransaction(transaction, "prepare", new HttpPost()));
+    }
+
+    @Override
+    protected void commit(StarRocksTransaction transaction) {
+        if (transaction.getLoadedRows() == 0) {
+            rollbackQuietly(transaction);
+            return;
+        }
+
+        try {
+            checkStatus(transaction, "commit", executeTransaction(transaction, "commit", new HttpPost()));
+            LOG.info(
+                    "Committed starrocks transaction {} with {} rows",
+                    transaction.getLabel(),
+                    transaction.getLoadedRows());
+        } catch (IOException e) {
+            throw new FlinkRuntimeException(
+                    "Committing starrocks transaction " + transaction.getLabel() + " failed", e);
+        }
+    }
+
+    @Override
+    protected void abort(StarRocksTransaction transaction) {
+        buffer.reset();
+        rollbackQuietly(transaction);
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            super.close();
+        } finally {
+            if (client != null) {
+                client.close();
+            }
+        }
+    }
+
+    /**
+     * 将缓冲区中的数据写入事务
+     *
+     * @param transaction
+     * @throws IOException
+     */
+    private void load(StarRocksTransaction transaction) throws IOException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        serializer.endBatch(buffer);
+        HttpPut put = new HttpPut();
+        put.setHeader(HttpHeaders.EXPECT, "100-continue");
+        put.setHeader("columns", columnMapping.getColumnsHeader());
+        serializer.setHeaders(put);
+        options.getProperties().forEach(put::setHeader);
+        if (options.getCompression().getHeaderValue() != null) {
+            put.setHeader("compression", options.getCompression().getHeaderValue());
+        }
+        put.setEntity(new StreamLoadEntity(buffer, options.getCompression()));
+
+        try {
+            final StarRocksRetryPolicy retryPolicy = options.getRetryPolicy();
+            final long startTime = System.currentTimeMillis();
+            for (int attempt = 1; ; attempt++) {
+                StreamLoadFailure failure = sendLoad(transaction, put);
+                if (failure == null) {
+                    break;
+                }
+
+                long backoffMs = retryPolicy.nextBackoffMs(attempt, System.currentTimeMillis() - startTime, failure);
+                if (backoffMs < 0) {
+                    throw new IOException(
+                            String.format(
+                                    "Transaction load of %s failed after %d attempts, last failure: %s",
+                                    transaction.getLabel(), attempt, failure),
+                            failure.getException());
+                }
+                LOG.warn(
+                        "Transaction load of {} failed, retry in {}ms: {}", transaction.getLabel(), backoffMs, failure);
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting to retry transaction load", e);
+                }
+            }
+            transaction.setLoadedRows(transaction.getLoadedRows() + buffer.getRowCount());
+        } finally {
+            buffer.reset();
+        }
+    }
+
+    /**
+     * 向事务写入一批数据
+     *
+     * <p>事务内的每次load都会追加数据，请求已发出但结果未知时重发可能重复写入，因此只有确定未写入的失败（连接失败、非200响应、
+     * 返回失败状态）交给重试策略，其余异常直接抛出，由作业重启回滚整个事务。
+     *
+     * @param transaction
+     * @param put
+     * @return 成功时为null
+     * @throws IOException 结果不确定时
+     */
+    private StreamLoadFailure sendLoad(StarRocksTransaction transaction, HttpPut put) throws IOException {
+        put.setHeader(HttpHeaders.AUTHORIZATION, StreamLoadClient.basicAuthHeader(username, password));
+        put.setHeader("label", transaction.getLabel());
+        put.setHeader("db", database);
+        put.setHeader("table", table);
+
+        try (CloseableHttpResponse response = client.execute(transaction.getAddress(), "/api/transaction/load", put)) {
+            final int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode != 200) {
+                String body = response.getEntity() != null ? EntityUtils.toString(response.getEntity()) : "";
+                return StreamLoadFailure.ofResponse(statusCode, null, body);
+            }
+            StreamLoadResult result = StreamLoadResponseReader.readResult(statusCode, response.getEntity());
+            return StreamLoadResult.STATUS_OK.equals(result.getStatus())
+                    ? null
+                    : StreamLoadFailure.ofResponse(statusCode, result, null);
+        } catch (ConnectException | ConnectTimeoutException e) {
+            return StreamLoadFailure.ofException(e);
+        }
+    }
+
+    /** begin请求，事务超时只能在begin时指定 */
+    private HttpPost beginRequest() {
+        HttpPost begin = new HttpPost();
+        for (String property : BEGIN_PROPERTIES) {
+            String value = options.getProperties().get(property);
+            if (value != null) {
+                begin.setHeader(property, value);
+            }
+        }
+        return begin;
+    }
+
+    private void rollbackQuietly(StarRocksTransaction transaction) {
+        try {
+            StreamLoadResult result = executeTransaction(transaction, "rollback", new HttpPost());
+            if (!StreamLoadResult.STATUS_OK.equals(result.getStatus())) {
+                LOG.warn("Rolling back starrocks transaction {} failed: {}", transaction.getLabel(), result);
+            }
+        } catch (IOException e) {
+            LOG.warn("Rolling back starrocks transaction " + transaction.getLabel() + " failed", e);
+        }
+    }
+
+    /**
+     * 通过get_load_state查询事务label的状态
+     *
+     * @param transaction
+     * @return 查询失败时为null
+     */
+    private String loadState(StarRocksTransaction transaction) {
+        HttpGet get = new HttpGet();
+        get.setHeader(HttpHeaders.AUTHORIZATION, StreamLoadClient.basicAuthHeader(username, password));
+        String path = StreamLoadClient.loadStatePath(database, transaction.getLabel());
+        try (CloseableHttpResponse response = client.execute(transaction.getAddress(), path, get)) {
+            final int statusCode = response.getStatusLine().getStatusCode();
+            return statusCode == 200
+                    ? StreamLoadResponseReader.readField(statusCode, response.getEntity(), "state")
+                    : null;
+        } catch (IOException e) {
+            LOG.warn("Query state of transaction {} failed: {}", transaction.getLabel(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 调用事务导入接口
+     *
+     * @param transaction
+     * @param operation begin/load/prepare/commit/rollback
+     * @param request
+     * @return
+     * @throws IOException
+     */
+    private StreamLoadResult executeTransaction(
+            StarRocksTransaction transaction, String operation, HttpRequestBase request) throws IOException {
+        request.setHeader(HttpHeaders.AUTHORIZATION, StreamLoadClient.basicAuthHeader(username, password));
+        request.setHeader("label", transaction.getLabel());
+        request.setHeader("db", database);
+        request.setHeader("table", table);
+
+        try (CloseableHttpResponse response =
+                client.execute(transaction.getAddress(), "/api/transaction/" + operation, request)) {
+            final int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode != 200) {
+                String body = response.getEntity() != null ? EntityUtils.toString(response.getEntity()) : "";
+                throw new IOException(
+                        String.format(
+                                "Transaction %s of %s failed, statusCode=%s result=%s",
+                                operation, transaction.getLabel(), statusCode, body));
+            }
+            return StreamLoadResponseReader.readResult(statusCode, response.getEntity());
+        }
+    }
+
+    private void checkStatus(StarRocksTransaction transaction, String operation, StreamLoadResult result)
+            throws IOException {
+        if (!StreamLoadResult.STATUS_OK.equals(result.getStatus())) {
+            throw new IOException(
+                    String.format(
+                            "Transaction %s of %s failed, status=%s message=%s",
+                            operation, transaction.getLabel(), result.getStatus(), result.getMessage()));
+        }
+    }
+
+    public static <IT> StarRocksTransactionalSinkBuilder<IT> buildSink(StarRocksRecordAccessor<IT> accessor) {
+        return new StarRocksTransactionalSinkBuilder<>(accessor);
+    }
+
+    public static class StarRocksTransactionalSinkBuilder<IT>
+            extends StarRocksLoadBuilder<StarRocksTransactionalSinkBuilder<IT>> {
+        /** 字段读取 */
+        private final StarRocksRecordAccessor<IT> accessor;
+
+        protected StarRocksTransactionalSinkBuilder(StarRocksRecordAccessor<IT> accessor) {
+            this.accessor = accessor;
+        }
+
+        @Override
+        protected StarRocksTransactionalSinkBuilder<IT> self() {
+            return this;
+        }
+
+        public StarRocksTransactionalSink<IT> finish() {
+            if (accessor == null) {
+                throw new IllegalArgumentException("No record accessor supplied.");
+            }
+            validate();
+
+            // 事务内的批次在invoke中同步写入，checkpoint时统一提交，不支持异步发送、溢写和拆批隔离坏行
+            if (options.isAsyncFlush() || StringUtils.isNotBlank(options.getSpillDirectory())) {
+                throw new IllegalArgumentException(
+                        "The transactional sink loads synchronously, async flush and spilling are not supported.");
+            }
+            if (options.getDeadLetterHandler() != null) {
+                throw new IllegalArgumentException("The transactional sink does not support dead-letter handling.");
+            }
+
+            return new StarRocksTransactionalSink<>(
+                    url,
+                    username,
+                    password,
+                    database,
+                    table,
+                    columns,
+                    batchInterval,
+                    options,
+                    accessor,
+                    options.getLabelPrefix());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package starrocks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/** 一个待发送的批次，数据可能在堆内缓冲区中，也可能已溢写到本地磁盘 */
+interface StreamLoadBatch {
+
+    /** 批次行数 */
+    int getRowCount();
+
+    /** 批次字节数 */
+    int size();
+
+    /**
+     * 将批次数据写到输出流，可重复调用
+     *
+     * @param out
+     * @throws IOException
+     */
+    void writeTo(OutputStream out) throws IOException;
+
+    /**
+     * 读出批次数据和各行位置，拆分被拒绝的批次时使用
+     *
+     * @return 堆内缓冲区，不可复用到其他批次
+     * @throws IOException
+     */
+    StreamLoadBuffer read() throws IOException;
+}
@@ -0,0 +1,265 @@
+package starrocks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 批次数据缓冲区，记录按UTF-8字节直接追加到可扩容的堆内ByteBuffer中
+ *
+ * <p>缓冲区由OutputFormat池化复用，发送时直接把底层数组写入连接，不再产生额外拷贝。使用堆内而非直接内存，
+ * 是因为socket的OutputStream只接受byte[]，直接内存在写出时仍需拷贝一次。
+ */
+class StreamLoadBuffer implements StreamLoadBatch {
+
+    /** 默认初始容量 */
+    static final int DEFAULT_INITIAL_CAPACITY = 64 * 1024;
+
+    /** 行位置数组的初始容量 */
+    private static final int INITIAL_ROW_CAPACITY = 1024;
+
+    /** Long.MIN_VALUE无法取反，单独处理 */
+    private static final byte[] LONG_MIN_VALUE = String.valueOf(Long.MIN_VALUE).getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] TRUE_VALUE = "true".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] FALSE_VALUE = "false".getBytes(StandardCharsets.UTF_8);
+
+    /** 底层缓冲区 */
+    private ByteBuffer buffer;
+
+    /** 已写入行数 */
+    private int rowCount;
+
+    /** 各行数据的起始位置，不含批次头和行分隔符，拆分被拒绝的批次时使用 */
+    private int[] rowStarts = new int[INITIAL_ROW_CAPACITY];
+
+    /** 各行数据的结束位置 */
+    private int[] rowEnds = new int[INITIAL_ROW_CAPACITY];
+
+    /** 整数转字节的临时空间 */
+    private final byte[] digits = new byte[20];
+
+    /** 浮点数格式化的临时空间，避免生成中间String */
+    private final StringBuilder scratch = new StringBuilder(32);
+
+    StreamLoadBuffer() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    StreamLoadBuffer(int initialCapacity) {
+        this.buffer = ByteBuffer.allocate(initialCapacity);
+    }
+
+    /** 已写入字节数 */
+    @Override
+    public int size() {
+        return buffer.position();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    boolean isEmpty() {
+        return rowCount == 0;
+    }
+
+    /** 标记一行数据开始，由序列化器在写完行分隔符后调用 */
+    void beginRow() {
+        if (rowCount == rowStarts.length) {
+            rowStarts = Arrays.copyOf(rowStarts, rowCount * 2);
+            rowEnds = Arrays.copyOf(rowEnds, rowCount * 2);
+        }
+        rowStarts[rowCount] = buffer.position();
+    }
+
+    /** 标记一行写入完成 */
+    void endRow() {
+        rowEnds[rowCount] = buffer.position();
+        rowCount++;
+    }
+
+    /** 第row行数据的起始位置 */
+    int rowOffset(int row) {
+        return rowStarts[row];
+    }
+
+    /** 第row行数据的字节数 */
+    int rowLength(int row) {
+        return rowEnds[row] - rowStarts[row];
+    }
+
+    /**
+     * 各行的起止位置，溢写时随数据一起保存
+     *
+     * @return 两个数组依次为起始和结束位置，长度为行数
+     */
+    int[][] rowBounds() {
+        return new int[][] {Arrays.copyOf(rowStarts, rowCount), Arrays.copyOf(rowEnds, rowCount)};
+    }
+
+    /**
+     * 从溢写文件读回时恢复行数和各行位置
+     *
+     * @param starts
+     * @param ends
+     */
+    void setRowBounds(int[] starts, int[] ends) {
+        rowStarts = starts.length > 0 ? starts.clone() : new int[INITIAL_ROW_CAPACITY];
+        rowEnds = ends.length > 0 ? ends.clone() : new int[INITIAL_ROW_CAPACITY];
+        rowCount = starts.length;
+    }
+
+    /** 缓冲区本身即为堆内批次 */
+    @Override
+    public StreamLoadBuffer read() {
+        return this;
+    }
+
+    /**
+     * 丢弃size之后写入的字节，记录序列化失败时回退到记录开始前的位置；未调用endRow的行不计入行数
+     *
+     * @param size 保留的字节数，不大于当前已写入字节数
+     */
+    void truncate(int size) {
+        buffer.position(size);
+    }
+
+    /** 清空数据以便复用，保留已扩容的空间 */
+    void reset() {
+        buffer.clear();
+        rowCount = 0;
+    }
+
+    byte[] array() {
+        return buffer.array();
+    }
+
+    /**
+     * 将已写入的数据写到输出流
+     *
+     * @param out
+     * @throws IOException
+     */
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+    }
+
+    void writeByte(int b) {
+        ensureCapacity(1);
+        buffer.put((byte) b);
+    }
+
+    void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        buffer.put(bytes);
+    }
+
+    void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        buffer.put(bytes, offset, length);
+    }
+
+    void writeBoolean(boolean value) {
+        writeBytes(value ? TRUE_VALUE : FALSE_VALUE);
+    }
+
+    void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeBytes(LONG_MIN_VALUE);
+            return;
+        }
+
+        boolean negative = value < 0;
+        long remaining = negative ? -value : value;
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + (remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        if (negative) {
+            digits[--pos] = '-';
+        }
+
+        int length = digits.length - pos;
+        ensureCapacity(length);
+        buffer.put(digits, pos, length);
+    }
+
+    void writeDouble(double value) {
+        scratch.setLength(0);
+        scratch.append(value);
+        writeAscii(scratch);
+    }
+
+    void writeFloat(float value) {
+        scratch.setLength(0);
+        scratch.append(value);
+        writeAscii(scratch);
+    }
+
+    /**
+     * 按UTF-8编码写入字符串，非法的代理字符与String.getBytes一样替换为'?'
+     *
+     * @param value
+     */
+    void writeString(CharSequence value) {
+        int length = value.length();
+        ensureCapacity(length * 3);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c)
+                        && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                } else {
+                    buffer.put((byte) '?');
+                }
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private void writeAscii(CharSequence value) {
+        int length = value.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) value.charAt(i));
+        }
+    }
+
+    /**
+     * 保证剩余空间足够，不足时按两倍扩容
+     *
+     * @param required
+     */
+    private void ensureCapacity(int required) {
+        if (buffer.remaining() >= required) {
+            return;
+        }
+
+        int newCapacity = Math.max(buffer.capacity() * 2, buffer.position() + required);
+        ByteBuffer newBuffer = ByteBuffer.allocate(newCapacity);
+        buffer.flip();
+        newBuffer.put(buffer);
+        buffer = newBuffer;
+    }
+}
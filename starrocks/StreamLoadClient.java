@@ -0,0 +1,249 @@
+package starrocks;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stream Load HTTP客户端，使用连接池和keep-alive复用到FE/BE的连接
+ *
+ * <p>FE收到Stream Load请求后返回307重定向到BE，这里手动跟随重定向，并可按TTL缓存重定向目标，
+ * 缓存有效期内的请求直接发往BE，省去一次FE往返。
+ */
+class StreamLoadClient implements Closeable {
+
+    /** 日志log */
+    private static final Logger LOG = LoggerFactory.getLogger(StreamLoadClient.class);
+
+    /** 单次请求最多跟随的重定向次数 */
+    private static final int MAX_REDIRECTS = 3;
+
+    private final CloseableHttpClient client;
+
+    /** 重定向目标缓存时长（毫秒），0表示不缓存 */
+    private final long redirectCacheTtlMs;
+
+    /** 原始请求地址到重定向目标的缓存 */
+    private final Map<URI, CachedRedirect> redirects = new ConcurrentHashMap<>();
+
+    /** FE/BE地址选择 */
+    private final StreamLoadEndpointSelector selector;
+
+    StreamLoadClient(String urls, StarRocksLoadOptions options, int taskNumber) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(options.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(options.getMaxConnections());
+
+        RequestConfig requestConfig =
+                RequestConfig.custom()
+                        .setConnectTimeout(options.getConnectTimeoutMs())
+                        .setConnectionRequestTimeout(options.getConnectTimeoutMs())
+                        .setSocketTimeout(options.getSocketTimeoutMs())
+                        .build();
+
+        final long keepAliveMs = options.getKeepAliveMs();
+        this.client =
+                HttpClients.custom()
+                        .setConnectionManager(connectionManager)
+                        .setDefaultRequestConfig(requestConfig)
+                        .setKeepAliveStrategy((response, context) -> keepAliveMs)
+                        .evictIdleConnections(keepAliveMs, TimeUnit.MILLISECONDS)
+                        // 重定向由execute手动处理，以便缓存BE地址
+                        .disableRedirectHandling()
+                        .build();
+        this.redirectCacheTtlMs = options.getRedirectCacheTtlMs();
+        this.selector = new StreamLoadEndpointSelector(urls, options, client, taskNumber);
+    }
+
+    /**
+     * 选择一个FE/BE节点执行请求，节点不可达或返回5xx时将其拉黑
+     *
+     * @param path 以/开头的请求路径
+     * @param request
+     * @return
+     * @throws IOException
+     */
+    CloseableHttpResponse execute(String path, HttpRequestBase request) throws IOException {
+        StreamLoadEndpointSelector.Endpoint endpoint = selector.select();
+        boolean success = false;
+        request.setURI(URI.create("http://" + endpoint.address + path));
+        try {
+            CloseableHttpResponse response = execute(request, true);
+            success = response.getStatusLine().getStatusCode() < HttpStatus.SC_INTERNAL_SERVER_ERROR;
+            return response;
+        } finally {
+            selector.release(endpoint, success);
+        }
+    }
+
+    /**
+     * 在指定节点上执行请求，不缓存重定向目标
+     *
+     * <p>事务导入的begin/load/prepare/commit需发往同一个FE，由FE按label重定向到同一个BE，因此既不能负载均衡，
+     * 也不能按地址缓存重定向目标。
+     *
+     * @param address host:port
+     * @param path 以/开头的请求路径
+     * @param request
+     * @return
+     * @throws IOException
+     */
+    CloseableHttpResponse execute(String address, String path, HttpRequestBase request) throws IOException {
+        request.setURI(URI.create("http://" + address + path));
+        return execute(request, false);
+    }
+
+    /**
+     * 按负载均衡策略选择一个节点地址
+     *
+     * @return host:port
+     */
+    String selectAddress() {
+        StreamLoadEndpointSelector.Endpoint endpoint = selector.select();
+        selector.release(endpoint, true);
+        return endpoint.address;
+    }
+
+    /**
+     * 生成BasiAuth Header
+     *
+     * @param username
+     * @param password
+     * @return
+     */
+    static String basicAuthHeader(String username, String password) {
+        final String tobeEncode = username + ":" + password;
+        byte[] encoded = Base64.encodeBase64(tobeEncode.getBytes(StandardCharsets.UTF_8));
+        return "Basic " + new String(encoded);
+    }
+
+    /**
+     * 生成get_load_state的请求路径，label来自用户配置的前缀，作为查询参数需要URL编码
+     *
+     * @param database
+     * @param label
+     * @return
+     */
+    static String loadStatePath(String database, String label) {
+        try {
+            String encodedLabel = URLEncoder.encode(label, StandardCharsets.UTF_8.name());
+            return String.format("/api/%s/get_load_state?label=%s", database, encodedLabel);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not supported", e);
+        }
+    }
+
+    /**
+     * 执行请求并跟随FE返回的重定向，请求实体需可重复写出
+     *
+     * @param request
+     * @param cacheRedirect 是否使用及更新重定向缓存
+     * @return
+     * @throws IOException
+     */
+    private CloseableHttpResponse execute(HttpRequestBase request, boolean cacheRedirect) throws IOException {
+        final URI original = request.getURI();
+        final boolean useCache = cacheRedirect && redirectCacheTtlMs > 0;
+        try {
+            CachedRedirect cached = useCache ? redirects.get(original) : null;
+            if (cached != null && cached.isExpired()) {
+                redirects.remove(original, cached);
+                cached = null;
+            }
+
+            if (cached != null) {
+                request.setURI(cached.location);
+                CloseableHttpResponse response;
+                try {
+                    response = client.execute(request);
+                } catch (IOException e) {
+                    // 缓存的BE不可用，下次重新经过FE获取
+                    redirects.remove(original, cached);
+                    throw e;
+                }
+                int statusCode = response.getStatusLine().getStatusCode();
+                if (statusCode < 200 || statusCode >= 300) {
+                    // BE已下线、拒绝请求或又返回了重定向，缓存的地址不再可靠，响应仍交给调用方按失败处理
+                    redirects.remove(original, cached);
+                }
+                return response;
+            }
+
+            CloseableHttpResponse response = client.execute(request);
+            for (int i = 0; i < MAX_REDIRECTS && isRedirect(response); i++) {
+                Header location = response.getFirstHeader(HttpHeaders.LOCATION);
+                if (location == null) {
+                    break;
+                }
+
+                EntityUtils.consumeQuietly(response.getEntity());
+                response.close();
+
+                URI target = original.resolve(location.getValue());
+                if (useCache) {
+                    long expireAt = System.currentTimeMillis() + redirectCacheTtlMs;
+                    redirects.put(original, new CachedRedirect(target, expireAt));
+                }
+                LOG.debug("Stream load redirected from {} to {}", original, target);
+
+                request.setURI(target);
+                response = client.execute(request);
+            }
+            return response;
+        } finally {
+            request.setURI(original);
+        }
+    }
+
+    private boolean isRedirect(CloseableHttpResponse response) {
+        int statusCode = response.getStatusLine().getStatusCode();
+        return statusCode == HttpStatus.SC_TEMPORARY_REDIRECT
+                || statusCode == HttpStatus.SC_MOVED_TEMPORARILY
+                || statusCode == HttpStatus.SC_MOVED_PERMANENTLY
+                || statusCode == HttpStatus.SC_SEE_OTHER
+                || statusCode == 308;
+    }
+
+    @Override
+    public void close() throws IOException {
+        selector.close();
+        client.close();
+    }
+
+    /** 缓存的重定向目标 */
+    private static final class CachedRedirect {
+
+        private final URI location;
+
+        private final long expireAt;
+
+        private CachedRedirect(URI location, long expireAt) {
+            this.location = location;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expireAt;
+        }
+    }
+}
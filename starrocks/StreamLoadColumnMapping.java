@@ -0,0 +1,166 @@
+package starrocks;
+
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+import java.util.Arrays;
+
+/**
+ * 记录字段到导入列的映射
+ *
+ * <p>columns中的每一列对应记录的一个字段，默认按位置一一对应，也可以按字段位置或字段名选择记录的部分字段，未选中的字段不会被序列化。
+ * 派生列表达式（如dt=from_unixtime(ts)）追加到columns header中由StarRocks在导入时计算。upsert模式下导入列之后多写一列__op。
+ */
+final class StreamLoadColumnMapping {
+
+    /** 主键表的操作类型列 */
+    static final String OP_COLUMN = "__op";
+
+    /** __op列的取值：插入或更新 */
+    static final int OP_UPSERT = 0;
+
+    /** __op列的取值：删除 */
+    static final int OP_DELETE = 1;
+
+    /** 导入列 */
+    private final String[] columns;
+
+    /** 每个导入列对应的记录字段位置，为null时按位置一一对应 */
+    private final int[] fieldIndexes;
+
+    /** columns header */
+    private final String columnsHeader;
+
+    /** 是否写出__op列 */
+    private final boolean upsert;
+
+    private StreamLoadColumnMapping(String[] columns, int[] fieldIndexes, String[] expressions, boolean upsert) {
+        this.columns = columns;
+        this.fieldIndexes = fieldIndexes;
+        this.upsert = upsert;
+        this.columnsHeader = String.join(",", ArrayUtils.addAll(getSerializedColumns(), expressions));
+    }
+
+    /**
+     * 按配置生成映射
+     *
+     * @param columns 导入列
+     * @param options 可选参数，提供projection、projectionNames、columnExpressions和upsert
+     * @param fieldNames 记录字段名，按字段名选择时使用，可为null
+     * @return
+     */
+    static StreamLoadColumnMapping create(String[] columns, StarRocksLoadOptions options, String[] fieldNames) {
+        int[] fieldIndexes = options.getProjection();
+        if (fieldIndexes == null && options.getProjectionNames() != null) {
+            String[] projectionNames = options.getProjectionNames();
+            if (fieldNames == null) {
+                throw new IllegalArgumentException(
+                        "Selecting fields by name requires the record field names, set the type information.");
+            }
+
+            fieldIndexes = new int[projectionNames.length];
+            for (int i = 0; i < projectionNames.length; i++) {
+                fieldIndexes[i] = ArrayUtils.indexOf(fieldNames, projectionNames[i]);
+                if (fieldIndexes[i] < 0) {
+                    throw new IllegalArgumentException(
+                            String.format(
+                                    "Unknown field %s, available fields: %s",
+                                    projectionNames[i], Arrays.toString(fieldNames)));
+                }
+            }
+        }
+
+        if (fieldIndexes != null && fieldIndexes.length != columns.length) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "%d fields selected for %d columns %s",
+                            fieldIndexes.length, columns.length, Arrays.toString(columns)));
+        }
+
+        if (fieldIndexes != null) {
+            // 字段名未知时只能检查下界，上界在project中按字段类型检查
+            int fieldCount = fieldNames != null ? fieldNames.length : Integer.MAX_VALUE;
+            for (int fieldIndex : fieldIndexes) {
+                checkFieldIndex(fieldIndex, fieldCount);
+            }
+        }
+        return new StreamLoadColumnMapping(columns, fieldIndexes, options.getColumnExpressions(), options.isUpsert());
+    }
+
+    /** 导入列数 */
+    int getArity() {
+        return columns.length;
+    }
+
+    /**
+     * 导入列对应的记录字段位置
+     *
+     * @param pos 导入列位置
+     * @return
+     */
+    int getFieldIndex(int pos) {
+        return fieldIndexes == null ? pos : fieldIndexes[pos];
+    }
+
+    /** 是否在导入列之后写出__op列 */
+    boolean isUpsert() {
+        return upsert;
+    }
+
+    /** 序列化写出的列，upsert模式下末尾为__op */
+    String[] getSerializedColumns() {
+        return upsert ? ArrayUtils.add(columns, OP_COLUMN) : columns;
+    }
+
+    /**
+     * 序列化写出的列的类型，upsert模式下末尾为__op的INT类型
+     *
+     * @param fieldTypes 导入列类型，可为null
+     * @return
+     */
+    TypeInformation<?>[] serializedTypes(TypeInformation<?>[] fieldTypes) {
+        return upsert && fieldTypes != null ? ArrayUtils.add(fieldTypes, BasicTypeInfo.INT_TYPE_INFO) : fieldTypes;
+    }
+
+    /** 没有选择字段时，记录的全部字段按位置写出 */
+    boolean isIdentity() {
+        return fieldIndexes == null;
+    }
+
+    /**
+     * 取出导入列对应字段的类型
+     *
+     * @param fieldTypes 记录字段类型，可为null
+     * @return
+     */
+    TypeInformation<?>[] project(TypeInformation<?>[] fieldTypes) {
+        if (fieldTypes == null || fieldIndexes == null) {
+            return fieldTypes;
+        }
+
+        TypeInformation<?>[] projected = new TypeInformation<?>[fieldIndexes.length];
+        for (int i = 0; i < fieldIndexes.length; i++) {
+            checkFieldIndex(fieldIndexes[i], fieldTypes.length);
+            projected[i] = fieldTypes[fieldIndexes[i]];
+        }
+        return projected;
+    }
+
+    private static void checkFieldIndex(int fieldIndex, int fieldCount) {
+        if (fieldIndex < 0) {
+            throw new IllegalArgumentException("Selected field index " + fieldIndex + " is negative.");
+        }
+        if (fieldIndex >= fieldCount) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Selected field %d is out of range, the record has %d fields", fieldIndex, fieldCount));
+        }
+    }
+
+    /** columns header，导入列（upsert模式下含__op）之后是派生列表达式 */
+    String getColumnsHeader() {
+        return columnsHeader;
+    }
+}
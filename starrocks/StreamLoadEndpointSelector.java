@@ -0,0 +1,177 @@
+package starrocks;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在多个FE/BE的HTTP地址间分发Stream Load请求
+ *
+ * <p>失败的节点会被拉黑，后台线程定期访问其/api/health，恢复后重新参与分发。所有节点都被拉黑时仍然选出一个节点，
+ * 由重试逻辑决定是否放弃。
+ */
+class StreamLoadEndpointSelector implements Closeable {
+
+    /** 日志log */
+    private static final Logger LOG = LoggerFactory.getLogger(StreamLoadEndpointSelector.class);
+
+    private final List<Endpoint> endpoints;
+
+    private final StarRocksLoadBalanceStrategy strategy;
+
+    /** 轮询下标，也是在途请求数相同时的扫描起点 */
+    private final AtomicInteger next;
+
+    /** 节点健康检查线程，只有一个节点时不启动 */
+    private final ScheduledExecutorService prober;
+
+    /**
+     * StreamLoadEndpointSelector
+     *
+     * @param urls
+     * @param options
+     * @param client 健康检查使用
+     * @param taskNumber 并行实例序号，作为轮询起点，使各并行实例从不同节点开始
+     */
+    StreamLoadEndpointSelector(String urls, StarRocksLoadOptions options, CloseableHttpClient client, int taskNumber) {
+        List<Endpoint> parsed = new ArrayList<>();
+        for (String address : StringUtils.split(urls, ',')) {
+            if (StringUtils.isNotBlank(address)) {
+                parsed.add(new Endpoint(address.trim()));
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("No starrocks http address supplied: " + urls);
+        }
+
+        this.endpoints = Collections.unmodifiableList(parsed);
+        this.strategy = options.getLoadBalanceStrategy();
+        this.next = new AtomicInteger(taskNumber);
+
+        if (endpoints.size() > 1) {
+            long probeIntervalMs = options.getEndpointProbeIntervalMs();
+            prober =
+                    Executors.newSingleThreadScheduledExecutor(
+                            runnable -> {
+                                Thread thread = new Thread(runnable, "starrocks-endpoint-prober");
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+            prober.scheduleWithFixedDelay(
+                    () -> probeBlacklisted(client), probeIntervalMs, probeIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            prober = null;
+        }
+    }
+
+    /**
+     * 选择一个节点并增加其在途请求数，使用完后必须调用release
+     *
+     * @return
+     */
+    Endpoint select() {
+        Endpoint selected = null;
+        if (strategy == StarRocksLoadBalanceStrategy.LEAST_OUTSTANDING) {
+            // 在途请求数只统计本实例，通常都为0，从轮转的起点扫描，避免所有并行实例都选中第一个节点
+            int start = next.getAndIncrement();
+            for (int i = 0; i < endpoints.size(); i++) {
+                Endpoint endpoint = endpoints.get(Math.floorMod(start + i, endpoints.size()));
+                if (endpoint.healthy
+                        && (selected == null || endpoint.outstanding.get() < selected.outstanding.get())) {
+                    selected = endpoint;
+                }
+            }
+        } else {
+            int start = next.getAndIncrement();
+            for (int i = 0; i < endpoints.size(); i++) {
+                Endpoint endpoint = endpoints.get(Math.floorMod(start + i, endpoints.size()));
+                if (endpoint.healthy) {
+                    selected = endpoint;
+                    break;
+                }
+            }
+        }
+
+        if (selected == null) {
+            // 全部节点不可用时仍按轮询选择，交给重试逻辑处理
+            selected = endpoints.get(Math.floorMod(next.getAndIncrement(), endpoints.size()));
+        }
+        selected.outstanding.incrementAndGet();
+        return selected;
+    }
+
+    /**
+     * 请求结束，失败时拉黑节点
+     *
+     * @param endpoint
+     * @param success
+     */
+    void release(Endpoint endpoint, boolean success) {
+        endpoint.outstanding.decrementAndGet();
+        if (!success && endpoints.size() > 1 && endpoint.healthy) {
+            LOG.warn("Starrocks endpoint {} is blacklisted until it passes the health check", endpoint.address);
+            endpoint.healthy = false;
+        }
+    }
+
+    /**
+     * 探测被拉黑的节点
+     *
+     * @param client
+     */
+    private void probeBlacklisted(CloseableHttpClient client) {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.healthy) {
+                continue;
+            }
+
+            HttpGet get = new HttpGet(String.format("http://%s/api/health", endpoint.address));
+            try (CloseableHttpResponse response = client.execute(get)) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                if (response.getStatusLine().getStatusCode() == 200) {
+                    LOG.info("Starrocks endpoint {} passed the health check", endpoint.address);
+                    endpoint.healthy = true;
+                }
+            } catch (Exception e) {
+                LOG.debug("Starrocks endpoint {} health check failed: {}", endpoint.address, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+    }
+
+    /** FE或BE的HTTP地址 */
+    static final class Endpoint {
+
+        /** host:port */
+        final String address;
+
+        /** 在途请求数 */
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        /** 是否可用 */
+        private volatile boolean healthy = true;
+
+        private Endpoint(String address) {
+            this.address = address;
+        }
+    }
+}
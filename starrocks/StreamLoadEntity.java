@@ -0,0 +1,156 @@
+package starrocks;
+
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 直接写出批次的HttpEntity，发送时不再拼接或拷贝批次数据，已溢写的批次从文件流式写出
+ *
+ * <p>开启压缩时边压缩边按chunked方式写出，并记录最近一次写出的压缩后字节数和压缩耗时。
+ */
+class StreamLoadEntity extends AbstractHttpEntity {
+
+    /** 压缩流缓冲区大小 */
+    private static final int COMPRESSION_BUFFER_SIZE = 64 * 1024;
+
+    /** 批次数据 */
+    private final StreamLoadBatch batch;
+
+    /** 压缩方式 */
+    private final StarRocksCompression compression;
+
+    /** 最近一次写出的字节数 */
+    private volatile long writtenBytes;
+
+    /** 最近一次写出中压缩所用的时间（纳秒），不含写socket的时间 */
+    private volatile long compressNanos;
+
+    StreamLoadEntity(StreamLoadBatch batch) {
+        this(batch, StarRocksCompression.NONE);
+    }
+
+    StreamLoadEntity(StreamLoadBatch batch, StarRocksCompression compression) {
+        this.batch = batch;
+        this.compression = compression;
+        setContentType(ContentType.TEXT_PLAIN.withCharset(StandardCharsets.UTF_8).toString());
+        setChunked(compression != StarRocksCompression.NONE);
+    }
+
+    /** 批次可重复写出，重试和重定向时会再次调用writeTo */
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    /** 压缩后的长度无法预知，此时按chunked方式发送 */
+    @Override
+    public long getContentLength() {
+        return compression == StarRocksCompression.NONE ? batch.size() : -1;
+    }
+
+    /** 仅用于调试场景，正常发送路径走writeTo */
+    @Override
+    public InputStream getContent() throws IOException {
+        if (batch instanceof StreamLoadBuffer && compression == StarRocksCompression.NONE) {
+            return new ByteArrayInputStream(((StreamLoadBuffer) batch).array(), 0, batch.size());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTo(out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        if (compression == StarRocksCompression.NONE) {
+            // 不关闭输出流，底层连接由HttpClient管理
+            batch.writeTo(outStream);
+            outStream.flush();
+            writtenBytes = batch.size();
+            compressNanos = 0;
+            return;
+        }
+
+        long start = System.nanoTime();
+        MeteredOutputStream metered = new MeteredOutputStream(outStream);
+        // 关闭压缩流以写出尾部，MeteredOutputStream不会关闭底层连接
+        try (OutputStream compressed = compress(metered)) {
+            batch.writeTo(compressed);
+        }
+        writtenBytes = metered.bytes;
+        compressNanos = System.nanoTime() - start - metered.nanos;
+    }
+
+    private OutputStream compress(OutputStream out) throws IOException {
+        switch (compression) {
+            case GZIP:
+                return new GZIPOutputStream(out, COMPRESSION_BUFFER_SIZE);
+            case LZ4_FRAME:
+                return new LZ4FrameOutputStream(out, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB);
+            default:
+                throw new IllegalStateException("Unsupported compression " + compression);
+        }
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /** 批次原始字节数 */
+    long getRawBytes() {
+        return batch.size();
+    }
+
+    /** 最近一次写出的字节数，未压缩时等于原始字节数 */
+    long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    /** 最近一次写出中压缩所用的时间（纳秒） */
+    long getCompressNanos() {
+        return compressNanos;
+    }
+
+    /** 统计写入底层连接的字节数和耗时，close时只flush不关闭底层连接 */
+    private static final class MeteredOutputStream extends FilterOutputStream {
+
+        private long bytes;
+
+        private long nanos;
+
+        private MeteredOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long start = System.nanoTime();
+            out.write(b);
+            nanos += System.nanoTime() - start;
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            out.write(b, off, len);
+            nanos += System.nanoTime() - start;
+            bytes += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package starrocks;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpStatus;
+
+/**
+ * 区分可重试的临时错误和重试无意义的永久错误
+ *
+ * <p>临时错误：网络异常、超时、5xx、Publish Timeout、too many versions等集群压力导致的失败。
+ * 永久错误：认证失败、库表不存在、因数据质量被过滤导致的失败，重发同一批数据只会得到同样的结果。
+ */
+public final class StreamLoadErrorClassifier {
+
+    /** 消息中包含这些内容的失败视为永久错误 */
+    private static final String[] PERMANENT_MESSAGES = {
+        "too many filtered rows",
+        "access denied",
+        "unknown database",
+        "unknown table",
+        "not authorized",
+        "privilege",
+    };
+
+    private StreamLoadErrorClassifier() {}
+
+    /**
+     * 是否因数据质量导致整批失败：有被过滤的行、带有错误日志或超出max_filter_ratio
+     *
+     * @param result
+     * @return
+     */
+    static boolean isRejectedRows(StreamLoadResult result) {
+        if (result == null || !StreamLoadResult.STATUS_FAIL.equals(result.getStatus())) {
+            return false;
+        }
+        return (result.getNumberFilteredRows() != null && result.getNumberFilteredRows() > 0)
+                || (result.getErrorURLs() != null && !result.getErrorURLs().isEmpty())
+                || StringUtils.containsIgnoreCase(result.getMessage(), "too many filtered rows");
+    }
+
+    /**
+     * 是否为可重试的临时错误，无法识别的错误按临时错误处理
+     *
+     * @param failure
+     * @return
+     */
+    public static boolean isTransient(StreamLoadFailure failure) {
+        if (failure.getException() != null) {
+            return true;
+        }
+
+        int statusCode = failure.getStatusCode();
+        if (statusCode == HttpStatus.SC_UNAUTHORIZED
+                || statusCode == HttpStatus.SC_FORBIDDEN
+                || statusCode == HttpStatus.SC_NOT_FOUND) {
+            return false;
+        }
+
+        StreamLoadResult result = failure.getResult();
+        if (result == null) {
+            return true;
+        }
+
+        if (isRejectedRows(result)) {
+            return false;
+        }
+
+        String message = StringUtils.lowerCase(result.getMessage());
+        if (message != null) {
+            for (String permanent : PERMANENT_MESSAGES) {
+                if (message.contains(permanent)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
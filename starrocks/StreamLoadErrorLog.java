@@ -0,0 +1,114 @@
+package starrocks;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读取并解析Stream Load返回的ErrorURL
+ *
+ * <p>错误日志由BE提供，每行对应一行被过滤的数据，新版本格式为"Error: 原因. Row: 数据"，旧版本为"Reason: 原因. src line: [数据];"。
+ * 无法识别的行整行作为原因。
+ */
+final class StreamLoadErrorLog {
+
+    /** 每个错误日志最多读取的行数，避免大量脏数据时占用过多内存 */
+    static final int MAX_LINES = 1000;
+
+    private static final String ROW_MARKER = "Row: ";
+
+    private static final String SRC_LINE_MARKER = "src line: [";
+
+    private StreamLoadErrorLog() {}
+
+    /**
+     * 读取导入结果中的所有错误日志
+     *
+     * @param client
+     * @param authorization Authorization header
+     * @param result
+     * @return 按日志顺序的错误，最多MAX_LINES条
+     * @throws IOException
+     */
+    static List<Entry> fetch(StreamLoadClient client, String authorization, StreamLoadResult result)
+            throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (result == null || result.getErrorURLs() == null) {
+            return entries;
+        }
+
+        for (String errorUrl : result.getErrorURLs()) {
+            if (StringUtils.isBlank(errorUrl) || entries.size() >= MAX_LINES) {
+                continue;
+            }
+            URI uri = URI.create(errorUrl.trim());
+            String path = uri.getRawQuery() != null ? uri.getRawPath() + "?" + uri.getRawQuery() : uri.getRawPath();
+            HttpGet get = new HttpGet();
+            get.setHeader(HttpHeaders.AUTHORIZATION, authorization);
+            try (CloseableHttpResponse response = client.execute(uri.getRawAuthority(), path, get)) {
+                if (response.getStatusLine().getStatusCode() != 200 || response.getEntity() == null) {
+                    throw new IOException(
+                            "Fetch stream load error log " + errorUrl + " failed: " + response.getStatusLine());
+                }
+                try (BufferedReader reader =
+                        new BufferedReader(
+                                new InputStreamReader(response.getEntity().getContent(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while (entries.size() < MAX_LINES && (line = reader.readLine()) != null) {
+                        if (StringUtils.isNotBlank(line)) {
+                            entries.add(parse(line));
+                        }
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 解析一行错误日志
+     *
+     * @param line
+     * @return
+     */
+    static Entry parse(String line) {
+        int rowIndex = line.indexOf(ROW_MARKER);
+        if (rowIndex >= 0) {
+            String reason = StringUtils.removeStart(line.substring(0, rowIndex).trim(), "Error: ");
+            return new Entry(reason, line.substring(rowIndex + ROW_MARKER.length()));
+        }
+
+        int srcIndex = line.indexOf(SRC_LINE_MARKER);
+        if (srcIndex >= 0) {
+            String reason = StringUtils.removeStart(line.substring(0, srcIndex).trim(), "Reason: ");
+            int end = line.lastIndexOf(']');
+            int start = srcIndex + SRC_LINE_MARKER.length();
+            return new Entry(reason, line.substring(start, end >= start ? end : line.length()));
+        }
+        return new Entry(line.trim(), null);
+    }
+
+    /** 一行被过滤的数据 */
+    static final class Entry {
+
+        /** 过滤原因 */
+        final String reason;
+
+        /** 日志中记录的原始数据，格式无法识别时为null */
+        final String row;
+
+        Entry(String reason, String row) {
+            this.reason = reason;
+            this.row = row;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package starrocks;
+
+/** 一次Stream Load请求的失败信息，供重试策略判断 */
+public class StreamLoadFailure {
+
+    /** HTTP状态码，请求未得到响应时为-1 */
+    private final int statusCode;
+
+    /** 解析后的导入结果，响应为空或无法解析时为null */
+    private final StreamLoadResult result;
+
+    /** 非200响应的原始内容，200响应已解析为result时为null */
+    private final String body;
+
+    /** 请求异常，得到响应时为null */
+    private final Exception exception;
+
+    private StreamLoadFailure(int statusCode, StreamLoadResult result, String body, Exception exception) {
+        this.statusCode = statusCode;
+        this.result = result;
+        this.body = body;
+        this.exception = exception;
+    }
+
+    static StreamLoadFailure ofResponse(int statusCode, StreamLoadResult result, String body) {
+        return new StreamLoadFailure(statusCode, result, body, null);
+    }
+
+    static StreamLoadFailure ofException(Exception exception) {
+        return new StreamLoadFailure(-1, null, null, exception);
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public StreamLoadResult getResult() {
+        return result;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public Exception getException() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        if (exception != null) {
+            return exception.getClass().getSimpleName() + ": " + exception.getMessage();
+        }
+        return String.format("statusCode=%s loadResult=%s", statusCode, body != null ? body : result);
+    }
+}
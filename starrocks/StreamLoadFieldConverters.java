@@ -0,0 +1,678 @@
+package starrocks;
+
+import org.apache.flink.api.common.typeinfo.BasicArrayTypeInfo;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeinfo.LocalTimeTypeInfo;
+import org.apache.flink.api.common.typeinfo.PrimitiveArrayTypeInfo;
+import org.apache.flink.api.common.typeinfo.SqlTimeTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.tuple.Tuple;
+import org.apache.flink.api.java.typeutils.ListTypeInfo;
+import org.apache.flink.api.java.typeutils.MapTypeInfo;
+import org.apache.flink.api.java.typeutils.ObjectArrayTypeInfo;
+import org.apache.flink.api.java.typeutils.PojoField;
+import org.apache.flink.api.java.typeutils.PojoTypeInfo;
+import org.apache.flink.api.java.typeutils.RowTypeInfo;
+import org.apache.flink.api.java.typeutils.TupleTypeInfoBase;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.types.Row;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按字段类型预先生成的字段写入器
+ *
+ * <p>open时按列的TypeInformation为每列生成一个写入器，写记录时不再逐字段判断类型。类型未知的列使用按运行时类型分派的通用写入器。
+ * 日期按StarRocks的DATE/DATETIME格式输出，BigDecimal不使用科学计数法，byte[]输出为十六进制，嵌套类型输出为JSON。
+ * Row和Tuple无论类型是否已知都写为以字段名为key的对象，未命名的字段按位置命名为f0、f1…，与RowTypeInfo和TupleTypeInfo的默认字段名一致。
+ */
+final class StreamLoadFieldConverters {
+
+    /** DATE格式 */
+    static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    /** DATETIME格式，有小数秒时最多输出到微秒 */
+    static final DateTimeFormatter DATETIME_FORMATTER =
+            new DateTimeFormatterBuilder()
+                    .appendPattern("yyyy-MM-dd HH:mm:ss")
+                    .appendFraction(ChronoField.NANO_OF_SECOND, 0, 6, true)
+                    .toFormatter();
+
+    /** TIME格式 */
+    static final DateTimeFormatter TIME_FORMATTER =
+            new DateTimeFormatterBuilder()
+                    .appendPattern("HH:mm:ss")
+                    .appendFraction(ChronoField.NANO_OF_SECOND, 0, 6, true)
+                    .toFormatter();
+
+    /** CSV中null的表示 */
+    static final byte[] CSV_NULL = {'\\', 'N'};
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** 按位置访问的Row和Tuple的字段名前缀 */
+    private static final String POSITIONAL_FIELD_PREFIX = "f";
+
+    private StreamLoadFieldConverters() {}
+
+    /** 写入CSV字段 */
+    interface CsvConverter {
+        void write(StreamLoadBuffer buffer, Object value) throws IOException;
+    }
+
+    /** 写入JSON字段值 */
+    interface JsonConverter {
+        void write(JsonGenerator generator, Object value) throws IOException;
+    }
+
+    /**
+     * 按列类型生成CSV写入器
+     *
+     * @param fieldTypes 列类型，为null或某列为null时使用通用写入器
+     * @param arity 列数
+     * @param escaper 字符串转义
+     * @param timeZone TIMESTAMP_LTZ、Instant和java.util.Date转换为DATETIME使用的时区
+     * @return
+     */
+    static CsvConverter[] csv(TypeInformation<?>[] fieldTypes, int arity, CsvEscaper escaper, ZoneId timeZone) {
+        CsvConverter[] converters = new CsvConverter[arity];
+        for (int i = 0; i < arity; i++) {
+            TypeInformation<?> type = fieldTypes != null && i < fieldTypes.length ? fieldTypes[i] : null;
+            converters[i] = csv(type, escaper, timeZone);
+        }
+        return converters;
+    }
+
+    /**
+     * 按列类型生成JSON写入器
+     *
+     * @param fieldTypes 列类型，为null或某列为null时使用通用写入器
+     * @param arity 列数
+     * @param timeZone TIMESTAMP_LTZ、Instant和java.util.Date转换为DATETIME使用的时区
+     * @return
+     */
+    static JsonConverter[] json(TypeInformation<?>[] fieldTypes, int arity, ZoneId timeZone) {
+        JsonConverter[] converters = new JsonConverter[arity];
+        for (int i = 0; i < arity; i++) {
+            TypeInformation<?> type = fieldTypes != null && i < fieldTypes.length ? fieldTypes[i] : null;
+            converters[i] = json(type, timeZone);
+        }
+        return converters;
+    }
+
+    static CsvConverter csv(TypeInformation<?> type, CsvEscaper escaper, ZoneId timeZone) {
+        CsvConverter converter = csvNonNull(type, escaper, timeZone);
+        return (buffer, value) -> {
+            if (value == null) {
+                buffer.writeBytes(CSV_NULL);
+            } else {
+                converter.write(buffer, value);
+            }
+        };
+    }
+
+    private static CsvConverter csvNonNull(TypeInformation<?> type, CsvEscaper escaper, ZoneId timeZone) {
+        if (type instanceof InternalTypeInfo) {
+            return RowDataFieldConverters.csv(((InternalTypeInfo<?>) type).toLogicalType(), escaper, timeZone);
+        }
+        if (BasicTypeInfo.STRING_TYPE_INFO.equals(type) || BasicTypeInfo.CHAR_TYPE_INFO.equals(type)) {
+            return (buffer, value) -> escaper.write(buffer, value.toString());
+        }
+        if (BasicTypeInfo.INT_TYPE_INFO.equals(type)
+                || BasicTypeInfo.LONG_TYPE_INFO.equals(type)
+                || BasicTypeInfo.SHORT_TYPE_INFO.equals(type)
+                || BasicTypeInfo.BYTE_TYPE_INFO.equals(type)) {
+            return (buffer, value) -> buffer.writeLong(((Number) value).longValue());
+        }
+        if (BasicTypeInfo.DOUBLE_TYPE_INFO.equals(type)) {
+            return (buffer, value) -> buffer.writeDouble((Double) value);
+        }
+        if (BasicTypeInfo.FLOAT_TYPE_INFO.equals(type)) {
+            return (buffer, value) -> buffer.writeFloat((Float) value);
+        }
+        if (BasicTypeInfo.BOOLEAN_TYPE_INFO.equals(type)) {
+            return (buffer, value) -> buffer.writeBoolean((Boolean) value);
+        }
+        if (BasicTypeInfo.BIG_DEC_TYPE_INFO.equals(type) || BasicTypeInfo.BIG_INT_TYPE_INFO.equals(type)) {
+            return (buffer, value) -> buffer.writeString(plainNumber(value));
+        }
+        if (PrimitiveArrayTypeInfo.BYTE_PRIMITIVE_ARRAY_TYPE_INFO.equals(type)) {
+            return (buffer, value) -> writeHex(buffer, (byte[]) value);
+        }
+        if (isTemporal(type)) {
+            StringBuilder scratch = new StringBuilder(32);
+            return (buffer, value) -> {
+                scratch.setLength(0);
+                formatTemporal(value, timeZone, scratch);
+                buffer.writeString(scratch);
+            };
+        }
+        if (!isNested(type)) {
+            return genericCsv(escaper, timeZone);
+        }
+
+        // 嵌套类型以JSON文本写入，ARRAY、MAP、STRUCT和JSON列均可解析
+        JsonConverter json = json(type, timeZone);
+        JsonText text = new JsonText();
+        return (buffer, value) -> escaper.write(buffer, text.format(json, value));
+    }
+
+    /** 按运行时类型分派的CSV写入器 */
+    private static CsvConverter genericCsv(CsvEscaper escaper, ZoneId timeZone) {
+        StringBuilder scratch = new StringBuilder(32);
+        JsonConverter json = genericJson(timeZone);
+        JsonText text = new JsonText();
+        return (buffer, value) -> {
+            if (value instanceof String) {
+                escaper.write(buffer, (String) value);
+            } else if (value instanceof Integer
+                    || value instanceof Long
+                    || value instanceof Short
+                    || value instanceof Byte) {
+                buffer.writeLong(((Number) value).longValue());
+            } else if (value instanceof Double) {
+                buffer.writeDouble((Double) value);
+            } else if (value instanceof Float) {
+                buffer.writeFloat((Float) value);
+            } else if (value instanceof Boolean) {
+                buffer.writeBoolean((Boolean) value);
+            } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+                buffer.writeString(plainNumber(value));
+            } else if (value instanceof byte[]) {
+                writeHex(buffer, (byte[]) value);
+            } else if (value instanceof Date || value instanceof TemporalAccessor) {
+                scratch.setLength(0);
+                formatTemporal(value, timeZone, scratch);
+                buffer.writeString(scratch);
+            } else if (isNestedValue(value)) {
+                escaper.write(buffer, text.format(json, value));
+            } else {
+                escaper.write(buffer, String.valueOf(value));
+            }
+        };
+    }
+
+    static JsonConverter json(TypeInformation<?> type, ZoneId timeZone) {
+        JsonConverter converter = jsonNonNull(type, timeZone);
+        return (generator, value) -> {
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                converter.write(generator, value);
+            }
+        };
+    }
+
+    private static JsonConverter jsonNonNull(TypeInformation<?> type, ZoneId timeZone) {
+        if (type instanceof InternalTypeInfo) {
+            return RowDataFieldConverters.json(((InternalTypeInfo<?>) type).toLogicalType(), timeZone);
+        }
+        if (BasicTypeInfo.STRING_TYPE_INFO.equals(type) || BasicTypeInfo.CHAR_TYPE_INFO.equals(type)) {
+            return (generator, value) -> generator.writeString(value.toString());
+        }
+        if (BasicTypeInfo.INT_TYPE_INFO.equals(type)
+                || BasicTypeInfo.SHORT_TYPE_INFO.equals(type)
+                || BasicTypeInfo.BYTE_TYPE_INFO.equals(type)) {
+            return (generator, value) -> generator.writeNumber(((Number) value).intValue());
+        }
+        if (BasicTypeInfo.LONG_TYPE_INFO.equals(type)) {
+            return (generator, value) -> generator.writeNumber((Long) value);
+        }
+        if (BasicTypeInfo.DOUBLE_TYPE_INFO.equals(type)) {
+            return (generator, value) -> generator.writeNumber((Double) value);
+        }
+        if (BasicTypeInfo.FLOAT_TYPE_INFO.equals(type)) {
+            return (generator, value) -> generator.writeNumber((Float) value);
+        }
+        if (BasicTypeInfo.BOOLEAN_TYPE_INFO.equals(type)) {
+            return (generator, value) -> generator.writeBoolean((Boolean) value);
+        }
+        if (BasicTypeInfo.BIG_DEC_TYPE_INFO.equals(type)) {
+            return (generator, value) -> generator.writeNumber((BigDecimal) value);
+        }
+        if (BasicTypeInfo.BIG_INT_TYPE_INFO.equals(type)) {
+            return (generator, value) -> generator.writeNumber((BigInteger) value);
+        }
+        if (PrimitiveArrayTypeInfo.BYTE_PRIMITIVE_ARRAY_TYPE_INFO.equals(type)) {
+            return (generator, value) -> generator.writeString(hex((byte[]) value));
+        }
+        if (isTemporal(type)) {
+            StringBuilder scratch = new StringBuilder(32);
+            return (generator, value) -> {
+                scratch.setLength(0);
+                formatTemporal(value, timeZone, scratch);
+                generator.writeString(scratch.toString());
+            };
+        }
+        if (type instanceof RowTypeInfo) {
+            RowTypeInfo rowType = (RowTypeInfo) type;
+            SerializableString[] names = fieldNames(rowType.getFieldNames());
+            JsonConverter[] fields = json(rowType.getFieldTypes(), rowType.getArity(), timeZone);
+            return (generator, value) -> {
+                Row row = (Row) value;
+                generator.writeStartObject();
+                for (int i = 0; i < names.length; i++) {
+                    generator.writeFieldName(names[i]);
+                    fields[i].write(generator, row.getField(i));
+                }
+                generator.writeEndObject();
+            };
+        }
+        if (type instanceof PojoTypeInfo) {
+            return pojo((PojoTypeInfo<?>) type, timeZone);
+        }
+        if (type instanceof TupleTypeInfoBase && Tuple.class.isAssignableFrom(type.getTypeClass())) {
+            TupleTypeInfoBase<?> tupleType = (TupleTypeInfoBase<?>) type;
+            SerializableString[] names = fieldNames(tupleType.getFieldNames());
+            JsonConverter[] fields = new JsonConverter[tupleType.getArity()];
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = json(tupleType.getTypeAt(i), timeZone);
+            }
+            return (generator, value) -> {
+                Tuple tuple = (Tuple) value;
+                generator.writeStartObject();
+                for (int i = 0; i < names.length; i++) {
+                    generator.writeFieldName(names[i]);
+                    fields[i].write(generator, tuple.getField(i));
+                }
+                generator.writeEndObject();
+            };
+        }
+        if (type instanceof BasicArrayTypeInfo || type instanceof ObjectArrayTypeInfo) {
+            TypeInformation<?> componentType =
+                    type instanceof BasicArrayTypeInfo
+                            ? ((BasicArrayTypeInfo<?, ?>) type).getComponentInfo()
+                            : ((ObjectArrayTypeInfo<?, ?>) type).getComponentInfo();
+            JsonConverter element = json(componentType, timeZone);
+            return (generator, value) -> {
+                Object[] array = (Object[]) value;
+                generator.writeStartArray();
+                for (Object item : array) {
+                    element.write(generator, item);
+                }
+                generator.writeEndArray();
+            };
+        }
+        if (type instanceof PrimitiveArrayTypeInfo) {
+            JsonConverter element =
+                    json(((PrimitiveArrayTypeInfo<?>) type).getComponentType(), timeZone);
+            return (generator, value) -> {
+                int length = Array.getLength(value);
+                generator.writeStartArray();
+                for (int i = 0; i < length; i++) {
+                    element.write(generator, Array.get(value, i));
+                }
+                generator.writeEndArray();
+            };
+        }
+        if (type instanceof ListTypeInfo) {
+            JsonConverter element = json(((ListTypeInfo<?>) type).getElementTypeInfo(), timeZone);
+            return (generator, value) -> {
+                generator.writeStartArray();
+                for (Object item : (Collection<?>) value) {
+                    element.write(generator, item);
+                }
+                generator.writeEndArray();
+            };
+        }
+        if (type instanceof MapTypeInfo) {
+            JsonConverter element = json(((MapTypeInfo<?, ?>) type).getValueTypeInfo(), timeZone);
+            return (generator, value) -> {
+                generator.writeStartObject();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    generator.writeFieldName(String.valueOf(entry.getKey()));
+                    element.write(generator, entry.getValue());
+                }
+                generator.writeEndObject();
+            };
+        }
+        return genericJson(timeZone);
+    }
+
+    /** POJO按字段名写为对象，字段通过反射读取 */
+    private static JsonConverter pojo(PojoTypeInfo<?> type, ZoneId timeZone) {
+        int arity = type.getArity();
+        SerializableString[] names = new SerializableString[arity];
+        Field[] reflectFields = new Field[arity];
+        JsonConverter[] fields = new JsonConverter[arity];
+        for (int i = 0; i < arity; i++) {
+            PojoField pojoField = type.getPojoFieldAt(i);
+            names[i] = new SerializedString(pojoField.getField().getName());
+            reflectFields[i] = pojoField.getField();
+            reflectFields[i].setAccessible(true);
+            fields[i] = json(pojoField.getTypeInformation(), timeZone);
+        }
+        return (generator, value) -> {
+            generator.writeStartObject();
+            for (int i = 0; i < arity; i++) {
+                generator.writeFieldName(names[i]);
+                try {
+                    fields[i].write(generator, reflectFields[i].get(value));
+                } catch (IllegalAccessException e) {
+                    throw new IOException("Cannot read field " + reflectFields[i], e);
+                }
+            }
+            generator.writeEndObject();
+        };
+    }
+
+    /** 按运行时类型分派的JSON写入器 */
+    private static JsonConverter genericJson(ZoneId timeZone) {
+        StringBuilder scratch = new StringBuilder(32);
+        return new JsonConverter() {
+            @Override
+            public void write(JsonGenerator generator, Object value) throws IOException {
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof String) {
+                    generator.writeString((String) value);
+                } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                    generator.writeNumber(((Number) value).intValue());
+                } else if (value instanceof Long) {
+                    generator.writeNumber((Long) value);
+                } else if (value instanceof Double) {
+                    generator.writeNumber((Double) value);
+                } else if (value instanceof Float) {
+                    generator.writeNumber((Float) value);
+                } else if (value instanceof BigDecimal) {
+                    generator.writeNumber((BigDecimal) value);
+                } else if (value instanceof BigInteger) {
+                    generator.writeNumber((BigInteger) value);
+                } else if (value instanceof Boolean) {
+                    generator.writeBoolean((Boolean) value);
+                } else if (value instanceof byte[]) {
+                    generator.writeString(hex((byte[]) value));
+                } else if (value instanceof Date || value instanceof TemporalAccessor) {
+                    scratch.setLength(0);
+                    formatTemporal(value, timeZone, scratch);
+                    generator.writeString(scratch.toString());
+                } else if (value instanceof Row) {
+                    Row row = (Row) value;
+                    Set<String> names = row.getFieldNames(false);
+                    generator.writeStartObject();
+                    if (names != null) {
+                        for (String name : names) {
+                            generator.writeFieldName(name);
+                            write(generator, row.getField(name));
+                        }
+                    } else {
+                        for (int i = 0; i < row.getArity(); i++) {
+                            generator.writeFieldName(POSITIONAL_FIELD_PREFIX + i);
+                            write(generator, row.getField(i));
+                        }
+                    }
+                    generator.writeEndObject();
+                } else if (value instanceof Tuple) {
+                    Tuple tuple = (Tuple) value;
+                    generator.writeStartObject();
+                    for (int i = 0; i < tuple.getArity(); i++) {
+                        generator.writeFieldName(POSITIONAL_FIELD_PREFIX + i);
+                        write(generator, tuple.getField(i));
+                    }
+                    generator.writeEndObject();
+                } else if (value instanceof Map) {
+                    generator.writeStartObject();
+                    for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                        generator.writeFieldName(String.valueOf(entry.getKey()));
+                        write(generator, entry.getValue());
+                    }
+                    generator.writeEndObject();
+                } else if (value instanceof Collection) {
+                    generator.writeStartArray();
+                    for (Object item : (Collection<?>) value) {
+                        write(generator, item);
+                    }
+                    generator.writeEndArray();
+                } else if (value.getClass().isArray()) {
+                    int length = Array.getLength(value);
+                    generator.writeStartArray();
+                    for (int i = 0; i < length; i++) {
+                        write(generator, Array.get(value, i));
+                    }
+                    generator.writeEndArray();
+                } else {
+                    generator.writeString(String.valueOf(value));
+                }
+            }
+        };
+    }
+
+    private static boolean isTemporal(TypeInformation<?> type) {
+        return type instanceof SqlTimeTypeInfo
+                || type instanceof LocalTimeTypeInfo
+                || BasicTypeInfo.DATE_TYPE_INFO.equals(type)
+                || BasicTypeInfo.INSTANT_TYPE_INFO.equals(type);
+    }
+
+    private static boolean isNested(TypeInformation<?> type) {
+        return type instanceof RowTypeInfo
+                || type instanceof TupleTypeInfoBase
+                || type instanceof BasicArrayTypeInfo
+                || type instanceof ObjectArrayTypeInfo
+                || type instanceof PrimitiveArrayTypeInfo
+                || type instanceof ListTypeInfo
+                || type instanceof MapTypeInfo;
+    }
+
+    private static boolean isNestedValue(Object value) {
+        return value instanceof Row
+                || value instanceof Tuple
+                || value instanceof Map
+                || value instanceof Collection
+                || value.getClass().isArray();
+    }
+
+    /**
+     * 按StarRocks格式输出日期时间，java.util.Date和Instant按JVM默认时区转换
+     *
+     * @param value
+     * @param out
+     */
+    static void formatTemporal(Object value, StringBuilder out) {
+        formatTemporal(value, ZoneId.systemDefault(), out);
+    }
+
+    /**
+     * 按StarRocks格式输出日期时间，java.util.Date和Instant表示时间点，按timeZone转换为DATETIME
+     *
+     * @param value
+     * @param timeZone
+     * @param out
+     */
+    static void formatTemporal(Object value, ZoneId timeZone, StringBuilder out) {
+        if (value instanceof java.sql.Date) {
+            DATE_FORMATTER.formatTo(((java.sql.Date) value).toLocalDate(), out);
+        } else if (value instanceof Time) {
+            TIME_FORMATTER.formatTo(((Time) value).toLocalTime(), out);
+        } else if (value instanceof Timestamp) {
+            DATETIME_FORMATTER.formatTo(((Timestamp) value).toLocalDateTime(), out);
+        } else if (value instanceof Date) {
+            DATETIME_FORMATTER.formatTo(LocalDateTime.ofInstant(((Date) value).toInstant(), timeZone), out);
+        } else if (value instanceof LocalDate) {
+            DATE_FORMATTER.formatTo((LocalDate) value, out);
+        } else if (value instanceof LocalDateTime) {
+            DATETIME_FORMATTER.formatTo((LocalDateTime) value, out);
+        } else if (value instanceof LocalTime) {
+            TIME_FORMATTER.formatTo((LocalTime) value, out);
+        } else if (value instanceof Instant) {
+            DATETIME_FORMATTER.formatTo(LocalDateTime.ofInstant((Instant) value, timeZone), out);
+        } else {
+            out.append(value);
+        }
+    }
+
+    /** BigDecimal不使用科学计数法 */
+    private static String plainNumber(Object value) {
+        return value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+    }
+
+    private static void writeHex(StreamLoadBuffer buffer, byte[] bytes) {
+        for (byte b : bytes) {
+            buffer.writeByte(HEX_DIGITS[(b >> 4) & 0x0F]);
+            buffer.writeByte(HEX_DIGITS[b & 0x0F]);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    static SerializableString[] fieldNames(String[] names) {
+        SerializableString[] serialized = new SerializableString[names.length];
+        for (int i = 0; i < names.length; i++) {
+            serialized[i] = new SerializedString(names[i]);
+        }
+        return serialized;
+    }
+
+    /** CSV中嵌套类型的JSON文本，复用同一个生成器 */
+    private static final class JsonText {
+
+        private final StringWriter writer = new StringWriter();
+
+        private JsonGenerator generator;
+
+        String format(JsonConverter converter, Object value) throws IOException {
+            if (generator == null) {
+                generator = new JsonFactory().createGenerator(writer);
+                generator.enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN);
+                generator.setRootValueSeparator(null);
+            }
+            writer.getBuffer().setLength(0);
+            converter.write(generator, value);
+            generator.flush();
+            return writer.toString();
+        }
+    }
+
+    /**
+     * CSV字符串转义：包含列分隔符、行分隔符、引号或反斜杠的字符串用双引号包围，内部的引号和反斜杠以反斜杠转义
+     *
+     * <p>配合Stream Load的enclose和escape参数使用，其余字符串原样写出。
+     */
+    static final class CsvEscaper {
+
+        /** 包围字符 */
+        static final char ENCLOSE = '"';
+
+        /** 转义字符 */
+        static final char ESCAPE = '\\';
+
+        private final String columnSeperator;
+
+        private final String lineSeperator;
+
+        private final byte[] columnSeperatorBytes;
+
+        private final byte[] lineSeperatorBytes;
+
+        CsvEscaper(String columnSeperator, String lineSeperator) {
+            this.columnSeperator = columnSeperator;
+            this.lineSeperator = lineSeperator;
+            this.columnSeperatorBytes = columnSeperator.getBytes(StandardCharsets.UTF_8);
+            this.lineSeperatorBytes = lineSeperator.getBytes(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * 写入UTF-8编码的字符串，不需要包围时直接拷贝字节，不解码为String
+         *
+         * <p>UTF-8多字节字符的各字节都不小于0x80，按字节查找ASCII的引号、反斜杠和分隔符不会误判。
+         *
+         * @param buffer
+         * @param utf8
+         */
+        void writeUtf8(StreamLoadBuffer buffer, byte[] utf8) {
+            if (needsEnclose(utf8)) {
+                write(buffer, new String(utf8, StandardCharsets.UTF_8));
+            } else {
+                buffer.writeBytes(utf8);
+            }
+        }
+
+        void write(StreamLoadBuffer buffer, String value) {
+            if (!needsEnclose(value)) {
+                buffer.writeString(value);
+                return;
+            }
+
+            buffer.writeByte(ENCLOSE);
+            int start = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ENCLOSE || c == ESCAPE) {
+                    buffer.writeString(value.subSequence(start, i));
+                    buffer.writeByte(ESCAPE);
+                    start = i;
+                }
+            }
+            buffer.writeString(value.subSequence(start, value.length()));
+            buffer.writeByte(ENCLOSE);
+        }
+
+        private boolean needsEnclose(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ENCLOSE || c == ESCAPE || c == '\r' || c == '\n') {
+                    return true;
+                }
+            }
+            return value.contains(columnSeperator) || value.contains(lineSeperator);
+        }
+
+        private boolean needsEnclose(byte[] value) {
+            for (byte b : value) {
+                if (b == ENCLOSE || b == ESCAPE || b == '\r' || b == '\n') {
+                    return true;
+                }
+            }
+            return indexOf(value, columnSeperatorBytes) >= 0 || indexOf(value, lineSeperatorBytes) >= 0;
+        }
+
+        private static int indexOf(byte[] value, byte[] target) {
+            if (target.length == 0) {
+                return -1;
+            }
+            outer:
+            for (int i = 0; i <= value.length - target.length; i++) {
+                for (int j = 0; j < target.length; j++) {
+                    if (value[i + j] != target[j]) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package starrocks;
+
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.MeterView;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.metrics.DescriptiveStatisticsHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 导入链路的Flink指标，注册在算子MetricGroup的starrocks子分组下
+ *
+ * <p>用于区分瓶颈在连接器一侧（序列化、在途批次已满）还是StarRocks一侧（HTTP耗时、LoadTimeMs）。由任务线程和发送线程共同更新，发送线程可能有多个，它们调用的方法加锁。
+ */
+class StreamLoadMetrics {
+
+    /** 指标分组名 */
+    static final String GROUP_NAME = "starrocks";
+
+    /** 直方图统计的最近样本数 */
+    private static final int HISTOGRAM_WINDOW_SIZE = 1000;
+
+    /** 每批次序列化耗时（毫秒） */
+    private final Histogram serializeTimeMs;
+
+    /** 每次HTTP请求耗时（毫秒），含重定向 */
+    private final Histogram httpTimeMs;
+
+    /** StarRocks返回的LoadTimeMs */
+    private final Histogram loadTimeMs;
+
+    /** 导入成功的原始字节数 */
+    private final Counter loadedBytes;
+
+    /** 导入成功的行数 */
+    private final Counter loadedRows;
+
+    /** 被过滤的行数 */
+    private final Counter filteredRows;
+
+    /** 交给dead letter handler的行数 */
+    private final Counter deadLetterRows;
+
+    /** 重试次数 */
+    private final Counter retries;
+
+    /** 溢写到磁盘的批次数 */
+    private final Counter spilledBatches;
+
+    /** 在途批次数 */
+    private final AtomicInteger inFlightBatches = new AtomicInteger();
+
+    /** 最近一次导入成功的时间戳，从未成功时为0 */
+    private volatile long lastSuccessTimestamp;
+
+    /**
+     * 注册指标
+     *
+     * @param parent 算子的MetricGroup
+     * @param bufferFillRatio 当前缓冲区行数与批次行数之比
+     */
+    StreamLoadMetrics(MetricGroup parent, Gauge<Double> bufferFillRatio) {
+        MetricGroup group = parent.addGroup(GROUP_NAME);
+        serializeTimeMs =
+                group.histogram("serializeTimeMs", new DescriptiveStatisticsHistogram(HISTOGRAM_WINDOW_SIZE));
+        httpTimeMs = group.histogram("httpTimeMs", new DescriptiveStatisticsHistogram(HISTOGRAM_WINDOW_SIZE));
+        loadTimeMs = group.histogram("loadTimeMs", new DescriptiveStatisticsHistogram(HISTOGRAM_WINDOW_SIZE));
+        loadedBytes = group.counter("loadedBytes");
+        loadedRows = group.counter("loadedRows");
+        filteredRows = group.counter("filteredRows");
+        deadLetterRows = group.counter("deadLetterRows");
+        retries = group.counter("retries");
+        spilledBatches = group.counter("spilledBatches");
+        group.meter("loadedBytesPerSecond", new MeterView(loadedBytes));
+        group.meter("loadedRowsPerSecond", new MeterView(loadedRows));
+        group.gauge("inFlightBatches", (Gauge<Integer>) inFlightBatches::get);
+        group.gauge("bufferFillRatio", bufferFillRatio);
+        group.gauge("lastSuccessTimestamp", (Gauge<Long>) () -> lastSuccessTimestamp);
+    }
+
+    void recordSerialize(long nanos) {
+        serializeTimeMs.update(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    synchronized void recordHttp(long millis) {
+        httpTimeMs.update(millis);
+    }
+
+    synchronized void recordRetry() {
+        retries.inc();
+    }
+
+    synchronized void recordDeadLetter() {
+        deadLetterRows.inc();
+    }
+
+    /**
+     * 记录失败或被拒绝的导入中StarRocks报告的过滤行数，每个批次只在最终结果上记录一次
+     *
+     * @param result 可为null
+     */
+    synchronized void recordFiltered(StreamLoadResult result) {
+        if (result != null && result.getNumberFilteredRows() != null) {
+            filteredRows.inc(result.getNumberFilteredRows());
+        }
+    }
+
+    void recordSpill() {
+        spilledBatches.inc();
+    }
+
+    void batchStarted() {
+        inFlightBatches.incrementAndGet();
+    }
+
+    void batchFinished() {
+        inFlightBatches.decrementAndGet();
+    }
+
+    /**
+     * 记录一次成功的导入
+     *
+     * @param result StarRocks返回结果，label已存在而视为成功时为null
+     * @param rawBytes 批次原始字节数
+     * @param rows 批次行数，result为null时使用
+     */
+    synchronized void recordSuccess(StreamLoadResult result, long rawBytes, long rows) {
+        loadedBytes.inc(rawBytes);
+        if (result != null) {
+            loadedRows.inc(result.getNumberLoadedRows() != null ? result.getNumberLoadedRows() : rows);
+            if (result.getNumberFilteredRows() != null) {
+                filteredRows.inc(result.getNumberFilteredRows());
+            }
+            if (result.getLoadTimeMs() != null) {
+                loadTimeMs.update(result.getLoadTimeMs());
+            }
+        } else {
+            loadedRows.inc(rows);
+        }
+        lastSuccessTimestamp = System.currentTimeMillis();
+    }
+}
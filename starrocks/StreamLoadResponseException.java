@@ -0,0 +1,21 @@
+package starrocks;
+
+import java.io.IOException;
+
+/** Stream Load或事务接口返回了200，但响应为空或不是合法的导入结果JSON，此时无法判断导入是否成功 */
+public class StreamLoadResponseException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /** HTTP状态码 */
+    private final int statusCode;
+
+    public StreamLoadResponseException(int statusCode, String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,77 @@
+package starrocks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.http.HttpEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 直接从响应流解析Stream Load结果，不先读成String
+ *
+ * <p>ObjectReader在类加载时构建，不可变且线程安全，多个发送线程共用。解析失败抛出StreamLoadResponseException，
+ * 由调用方按结果不确定处理，而不是当作普通失败盲目重发。
+ */
+final class StreamLoadResponseReader {
+
+    private static final ObjectMapper MAPPER =
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /** 导入结果 */
+    private static final ObjectReader RESULT_READER = MAPPER.readerFor(StreamLoadResult.class);
+
+    /** get_load_state等只需要个别字段的响应 */
+    private static final ObjectReader TREE_READER = MAPPER.readerFor(JsonNode.class);
+
+    private StreamLoadResponseReader() {}
+
+    /**
+     * 解析导入结果
+     *
+     * @param statusCode
+     * @param entity
+     * @return
+     * @throws StreamLoadResponseException 响应为空或无法解析时
+     * @throws IOException 读取响应失败时
+     */
+    static StreamLoadResult readResult(int statusCode, HttpEntity entity) throws IOException {
+        if (entity == null) {
+            throw new StreamLoadResponseException(statusCode, "Empty stream load response", null);
+        }
+        try (InputStream in = entity.getContent()) {
+            StreamLoadResult result = RESULT_READER.readValue(in);
+            if (result == null) {
+                throw new StreamLoadResponseException(statusCode, "Empty stream load response", null);
+            }
+            return result;
+        } catch (JsonProcessingException e) {
+            throw new StreamLoadResponseException(
+                    statusCode, "Malformed stream load response: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * 读取响应中的一个字符串字段
+     *
+     * @param statusCode
+     * @param entity
+     * @param field
+     * @return 字段不存在时返回null
+     * @throws IOException
+     */
+    static String readField(int statusCode, HttpEntity entity, String field) throws IOException {
+        if (entity == null) {
+            throw new StreamLoadResponseException(statusCode, "Empty response", null);
+        }
+        try (InputStream in = entity.getContent()) {
+            JsonNode value = TREE_READER.<JsonNode>readValue(in).get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        } catch (JsonProcessingException e) {
+            throw new StreamLoadResponseException(statusCode, "Malformed response: " + e.getOriginalMessage(), e);
+        }
+    }
+}
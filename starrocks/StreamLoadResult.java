@@ -1,5 +1,6 @@
 package starrocks;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
@@ -10,6 +11,21 @@ public class StreamLoadResult {
 
     public static final String STATUS_SUCCESS = "Success";
 
+    /** 导入失败 */
+    public static final String STATUS_FAIL = "Fail";
+
+    /** 事务已提交但未在超时时间内生效，用同一label重试会得到Label Already Exists */
+    public static final String STATUS_PUBLISH_TIMEOUT = "Publish Timeout";
+
+    /** label已被使用时的状态，需结合existingJobStatus判断 */
+    public static final String STATUS_LABEL_ALREADY_EXISTS = "Label Already Exists";
+
+    /** 已存在的导入任务已完成 */
+    public static final String EXISTING_JOB_STATUS_FINISHED = "FINISHED";
+
+    /** 事务导入接口成功时的状态 */
+    public static final String STATUS_OK = "OK";
+
     @JsonProperty("TxnId")
     public Long txnId;
 
@@ -43,6 +59,8 @@ public class StreamLoadResult {
     @JsonProperty("LoadTimeMs")
     public Long loadTimeMs;
 
+    /** StarRocks返回单个字符串，兼容数组形式 */
     @JsonProperty("ErrorURL")
+    @JsonFormat(with = JsonFormat.Feature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
     public List<String> errorURLs;
 }
@@ -0,0 +1,64 @@
+package starrocks;
+
+import org.apache.http.HttpRequest;
+
+import java.io.IOException;
+
+/**
+ * 记录序列化到批次缓冲区的方式
+ *
+ * <p>调用顺序为beginRecord、按输出列位置逐个writeField、endRecord，批次发送前调用endBatch补齐批次尾部。
+ * 记录中途失败时调用方回退缓冲区并调用abortRecord，之后可以继续写入下一条记录。
+ */
+interface StreamLoadSerializer {
+
+    /**
+     * 开始写一条记录，批次第一条记录前写批次头，其余记录前写行分隔符，之后标记行的起始位置
+     *
+     * @param buffer
+     * @throws IOException
+     */
+    void beginRecord(StreamLoadBuffer buffer) throws IOException;
+
+    /**
+     * 写入一个字段
+     *
+     * @param pos 输出列位置
+     * @param value
+     * @throws IOException
+     */
+    void writeField(int pos, Object value) throws IOException;
+
+    /**
+     * 结束当前记录
+     *
+     * @throws IOException
+     */
+    void endRecord() throws IOException;
+
+    /** 放弃写到一半的当前记录，清除序列化器内部的记录状态，缓冲区由调用方回退 */
+    void abortRecord();
+
+    /**
+     * 把另一个批次中已序列化的一行追加到target，拆分被拒绝的批次时由发送线程调用，不使用逐条写入的状态
+     *
+     * @param target
+     * @param source
+     * @param row source中的行号
+     */
+    void appendRow(StreamLoadBuffer target, StreamLoadBuffer source, int row);
+
+    /**
+     * 批次发送前写入批次尾部
+     *
+     * @param buffer
+     */
+    void endBatch(StreamLoadBuffer buffer);
+
+    /**
+     * 设置该格式需要的Stream Load header
+     *
+     * @param request
+     */
+    void setHeaders(HttpRequest request);
+}
@@ -0,0 +1,165 @@
+package starrocks;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 待发送批次的本地磁盘溢写
+ *
+ * <p>堆内待发送批次超出内存预算时，批次通过FileChannel写入本地文件，堆内缓冲区立即归还复用；发送时通过transferTo从文件流式写入请求，
+ * 不再把整批数据读回堆内。每个批次一个文件，发送完成或关闭时删除。
+ */
+class StreamLoadSpillStore implements Closeable {
+
+    /** 日志log */
+    private static final Logger LOG = LoggerFactory.getLogger(StreamLoadSpillStore.class);
+
+    /** 溢写目录 */
+    private final Path directory;
+
+    /** 文件名前缀 */
+    private final String prefix;
+
+    /** 溢写文件总字节数上限，0表示不限制 */
+    private final long maxSpillBytes;
+
+    /** 当前溢写文件总字节数 */
+    private final AtomicLong spilledBytes = new AtomicLong();
+
+    /** 未删除的溢写文件 */
+    private final Set<Path> files = ConcurrentHashMap.newKeySet();
+
+    StreamLoadSpillStore(String directory, String prefix, long maxSpillBytes) throws IOException {
+        this.directory = Files.createDirectories(Paths.get(directory));
+        this.prefix = prefix;
+        this.maxSpillBytes = maxSpillBytes;
+    }
+
+    /**
+     * 是否还能溢写指定大小的批次
+     *
+     * @param size
+     * @return
+     */
+    boolean canSpill(long size) {
+        return maxSpillBytes <= 0 || spilledBytes.get() + size <= maxSpillBytes;
+    }
+
+    long getSpilledBytes() {
+        return spilledBytes.get();
+    }
+
+    /**
+     * 将批次写入新的溢写文件，调用后缓冲区可以复用
+     *
+     * @param buffer
+     * @return
+     * @throws IOException
+     */
+    SpilledBatch spill(StreamLoadBuffer buffer) throws IOException {
+        Path file = Files.createTempFile(directory, prefix, ".batch");
+        files.add(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer data = ByteBuffer.wrap(buffer.array(), 0, buffer.size());
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        } catch (IOException e) {
+            delete(file, 0);
+            throw e;
+        }
+        spilledBytes.addAndGet(buffer.size());
+        int[][] rowBounds = buffer.rowBounds();
+        return new SpilledBatch(file, buffer.size(), rowBounds[0], rowBounds[1]);
+    }
+
+    private void delete(Path file, long size) {
+        if (files.remove(file)) {
+            spilledBytes.addAndGet(-size);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOG.warn("Delete starrocks spill file {} failed: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    /** 删除所有未发送的溢写文件 */
+    @Override
+    public void close() {
+        for (Path file : files) {
+            delete(file, 0);
+        }
+        spilledBytes.set(0);
+    }
+
+    /** 已溢写到磁盘的批次 */
+    final class SpilledBatch implements StreamLoadBatch {
+
+        private final Path file;
+
+        private final int size;
+
+        /** 各行的起始位置，文件中只保存数据 */
+        private final int[] rowStarts;
+
+        /** 各行的结束位置 */
+        private final int[] rowEnds;
+
+        private SpilledBatch(Path file, int size, int[] rowStarts, int[] rowEnds) {
+            this.file = file;
+            this.size = size;
+            this.rowStarts = rowStarts;
+            this.rowEnds = rowEnds;
+        }
+
+        @Override
+        public int getRowCount() {
+            return rowStarts.length;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            WritableByteChannel target = Channels.newChannel(out);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long position = 0;
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+        }
+
+        @Override
+        public StreamLoadBuffer read() throws IOException {
+            StreamLoadBuffer buffer = new StreamLoadBuffer(size);
+            buffer.writeBytes(Files.readAllBytes(file));
+            buffer.setRowBounds(rowStarts, rowEnds);
+            return buffer;
+        }
+
+        /** 发送完成后删除文件 */
+        void delete() {
+            StreamLoadSpillStore.this.delete(file, size);
+        }
+    }
+}
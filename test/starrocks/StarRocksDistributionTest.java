@@ -0,0 +1,78 @@
+package starrocks;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** 分桶号与BE一致：期望值为按BE的字节布局对分桶键做zlib crc32后对分桶数取模 */
+class StarRocksDistributionTest {
+
+    private final StarRocksDistribution distribution = StarRocksDistribution.of(16, "k");
+
+    @Test
+    void intKeysHashFixedWidthLittleEndian() {
+        // crc32(01 00 00 00) = 0x99f8b879
+        assertEquals(9, distribution.bucketOf(1));
+        // crc32(f9 ff ff ff) = 0xda94a023
+        assertEquals(3, distribution.bucketOf(-7));
+        // crc32(cb 04 fb 71 1f 01 00 00) = 0x04fead40
+        assertEquals(0, distribution.bucketOf(1234567890123L));
+    }
+
+    @Test
+    void largeIntKeysHashSixteenBytes() {
+        // crc32(01 00 ... 00)，共16字节 = 0x42d3dac4
+        assertEquals(4, distribution.bucketOf(BigInteger.ONE));
+        // 负数按补码高位补ff：crc32(fe ff ... ff) = 0x91db578b
+        assertEquals(11, distribution.bucketOf(BigInteger.valueOf(-2)));
+    }
+
+    @Test
+    void stringKeysHashUtf8Bytes() {
+        // crc32("hello") = 0x3610a686
+        assertEquals(6, distribution.bucketOf("hello"));
+        // crc32("中文") = 0x5a09ed37
+        assertEquals(7, distribution.bucketOf("中文"));
+    }
+
+    @Test
+    void dateKeysHashTheirTextForm() {
+        // crc32("2024-03-01") = 0x7cf935bb
+        assertEquals(11, distribution.bucketOf(LocalDate.of(2024, 3, 1)));
+        // crc32("2024-03-01 12:34:56") = 0xe0277e7e
+        assertEquals(14, distribution.bucketOf(LocalDateTime.of(2024, 3, 1, 12, 34, 56)));
+    }
+
+    @Test
+    void datetimeKeysHashSixDigitFraction() {
+        // 与BE的TimestampValue::to_string一致，不去掉末尾的0：crc32("2024-03-01 12:34:56.123000") = 0x01a2633a
+        assertEquals(10, distribution.bucketOf(LocalDateTime.of(2024, 3, 1, 12, 34, 56, 123_000_000)));
+        // crc32("2024-03-01 12:34:56.000001") = 0xd58c7c87
+        assertEquals(7, distribution.bucketOf(LocalDateTime.of(2024, 3, 1, 12, 34, 56, 1_000)));
+        // 微秒以下的纳秒被截断，微秒为0时不带小数
+        assertEquals(14, distribution.bucketOf(LocalDateTime.of(2024, 3, 1, 12, 34, 56, 999)));
+    }
+
+    @Test
+    void nullKeysHashFourZeroBytes() {
+        // zlib_crc_hash_null: crc32(00 00 00 00) = 0x2144df1c
+        assertEquals(12, distribution.bucketOf((Object) null));
+        // 等同于INT 0
+        assertEquals(distribution.bucketOf(0), distribution.bucketOf((Object) null));
+    }
+
+    @Test
+    void multiColumnKeysChainTheCrc() {
+        StarRocksDistribution twoColumns = StarRocksDistribution.of(16, "a", "b");
+        // crc32(01 00 00 00 00 00 00 00) = 0xa988dff7
+        assertEquals(7, twoColumns.bucketOf(1, null));
+        // crc32(2a 00 00 00 "abc") = 0x3cc4217c
+        assertEquals(12, twoColumns.bucketOf(42, "abc"));
+        // 分桶数不同时取模不同：0x3cc4217c % 7
+        assertEquals(1, StarRocksDistribution.of(7, "a", "b").bucketOf(42, "abc"));
+    }
+}
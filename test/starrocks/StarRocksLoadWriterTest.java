@@ -0,0 +1,207 @@
+package starrocks;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.TaskInfo;
+import org.apache.flink.api.common.functions.util.RuntimeUDFContext;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.types.Row;
+import org.apache.flink.types.RowKind;
+
+import starrocks.testing.MockStarRocksServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** 经本地模拟服务验证导入的重试、label去重、坏行隔离和upsert */
+class StarRocksLoadWriterTest {
+
+    /** 重试间隔缩短到毫秒级 */
+    private static final StarRocksRetryPolicy FAST_RETRY = new ExponentialBackoffRetryPolicy(3, 10, 100, 2D, 0D, 0);
+
+    /** dead letter handler收到的行，handler需可序列化，不能捕获测试实例 */
+    private static final Queue<StarRocksDeadLetter> DEAD_LETTERS = new ConcurrentLinkedQueue<>();
+
+    private MockStarRocksServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new MockStarRocksServer();
+        DEAD_LETTERS.clear();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void lostResponseIsNotLoadedTwice() throws IOException {
+        // 第一次导入已生效但响应丢失，重发前查询到label已VISIBLE，不再重发
+        server.dropNextResponses(1);
+
+        StarRocksRowOutputFormat outputFormat = open(builder());
+        writeRows(outputFormat, 10);
+        outputFormat.close();
+
+        assertEquals(10, server.getLoadedRows());
+        assertEquals(1, server.getLoadCount());
+        assertEquals(1, server.getLabels().size());
+    }
+
+    @Test
+    void labelIsUrlEncodedInStateQuery() throws IOException {
+        // 响应丢失后按label查询状态，label中的&和空格需编码，否则查询不到或请求无法构造
+        server.dropNextResponses(1);
+
+        StarRocksRowOutputFormat outputFormat = open(builder().setLabelPrefix("test&x y_" + System.nanoTime()));
+        writeRows(outputFormat, 10);
+        outputFormat.close();
+
+        assertEquals(10, server.getLoadedRows());
+        assertEquals(1, server.getLoadCount());
+    }
+
+    @Test
+    void labelAlreadyFinishedIsTreatedAsSuccess() throws IOException {
+        // 响应丢失且label状态查询失败，重发同一label时返回Label Already Exists，ExistingJobStatus为FINISHED
+        server.dropNextResponses(1).failNextStateQueries(1);
+
+        StarRocksRowOutputFormat outputFormat = open(builder());
+        writeRows(outputFormat, 10);
+        outputFormat.close();
+
+        assertEquals(10, server.getLoadedRows());
+        assertEquals(1, server.getLoadCount());
+        String label = server.getLabels().iterator().next();
+        assertEquals(MockStarRocksServer.STATE_VISIBLE, server.getLabelState(label));
+    }
+
+    @Test
+    void rejectedRowsAreBisectedToTheDeadLetterHandler() throws IOException {
+        server.setPoisonMarker("BAD");
+
+        StarRocksRowOutputFormat outputFormat = open(builder().setDeadLetterHandler(DEAD_LETTERS::add));
+        for (int i = 0; i < 20; i++) {
+            outputFormat.writeRecord(Row.of(i, i == 13 ? "BAD" : "name" + i));
+        }
+        outputFormat.close();
+
+        assertEquals(19, server.getLoadedRows());
+        assertEquals(1, DEAD_LETTERS.size());
+        StarRocksDeadLetter deadLetter = DEAD_LETTERS.peek();
+        assertEquals("13\tBAD", deadLetter.getRow());
+        assertEquals("events", deadLetter.getTable());
+        assertTrue(deadLetter.getLabel().endsWith("_h0") || deadLetter.getLabel().endsWith("_h1"));
+    }
+
+    @Test
+    void tooManyRejectedRowsFailTheBatch() throws IOException {
+        server.setPoisonMarker("BAD");
+
+        StarRocksRowOutputFormat outputFormat =
+                open(builder().setDeadLetterHandler(DEAD_LETTERS::add).setMaxDeadLetterRatio(0.1D));
+        for (int i = 0; i < 20; i++) {
+            outputFormat.writeRecord(Row.of(i, i % 2 == 0 ? "BAD" : "name" + i));
+        }
+
+        assertThrows(IOException.class, outputFormat::close);
+        assertEquals(0, server.getLoadedRows());
+    }
+
+    @Test
+    void upsertWritesOpColumnFromRowKind() throws IOException {
+        server.setRecordRows(true);
+
+        StarRocksRowOutputFormat outputFormat = open(builder().setUpsert(true));
+        outputFormat.writeRecord(Row.ofKind(RowKind.INSERT, 1, "a"));
+        outputFormat.writeRecord(Row.ofKind(RowKind.UPDATE_BEFORE, 1, "a"));
+        outputFormat.writeRecord(Row.ofKind(RowKind.UPDATE_AFTER, 1, "b"));
+        outputFormat.writeRecord(Row.ofKind(RowKind.DELETE, 2, "c"));
+        outputFormat.close();
+
+        assertEquals("id,name,__op", server.getLastLoadHeader("columns"));
+        List<String> rows = server.getLastLoadRows();
+        assertEquals(Arrays.asList("1\ta\t0", "1\tb\t0", "2\tc\t1"), rows);
+    }
+
+    @Test
+    void propertiesAreSentAsHeaders() throws IOException {
+        StarRocksRowOutputFormat outputFormat =
+                open(builder().setLoadTimeoutSeconds(600).setProperty("merge_condition", "version"));
+        writeRows(outputFormat, 1);
+        outputFormat.close();
+
+        assertEquals("600", server.getLastLoadHeader("timeout"));
+        assertEquals("version", server.getLastLoadHeader("merge_condition"));
+    }
+
+    @Test
+    void failedRecordLeavesNoPartialBytes() throws IOException {
+        server.setRecordRows(true);
+
+        StarRocksRowOutputFormat outputFormat = open(builder());
+        outputFormat.writeRecord(Row.of(1, "a"));
+        // 第一个字段已写入缓冲区后第二个字段转换失败
+        assertThrows(IllegalStateException.class, () -> outputFormat.writeRecord(Row.of(2, new Unprintable())));
+        outputFormat.writeRecord(Row.of(3, "c"));
+        outputFormat.close();
+
+        assertEquals(Arrays.asList("1\ta", "3\tc"), server.getLastLoadRows());
+    }
+
+    /** 转为字符串时失败的字段值 */
+    private static final class Unprintable {
+
+        @Override
+        public String toString() {
+            throw new IllegalStateException("unprintable");
+        }
+    }
+
+    private StarRocksRowOutputFormat.StarRocksRowOutputFormatBuilder builder() {
+        return StarRocksRowOutputFormat.buildOutputFormat()
+                .setUrl(server.getFrontendAddress())
+                .setUsername("root")
+                .setPassword("")
+                .setDatabase("test")
+                .setTable("events")
+                .setColumns(new String[] {"id", "name"})
+                .setBatchInterval(1000)
+                .setRetryPolicy(FAST_RETRY)
+                .setLabelPrefix("test_" + System.nanoTime());
+    }
+
+    private static StarRocksRowOutputFormat open(StarRocksRowOutputFormat.StarRocksRowOutputFormatBuilder builder)
+            throws IOException {
+        StarRocksRowOutputFormat outputFormat = builder.finish();
+        outputFormat.setRuntimeContext(
+                new RuntimeUDFContext(
+                        new TaskInfo("test", 1, 0, 1, 0),
+                        StarRocksLoadWriterTest.class.getClassLoader(),
+                        new ExecutionConfig(),
+                        new HashMap<>(),
+                        new HashMap<>(),
+                        UnregisteredMetricsGroup.createOperatorMetricGroup()));
+        outputFormat.configure(null);
+        outputFormat.open(0, 1);
+        return outputFormat;
+    }
+
+    private static void writeRows(StarRocksRowOutputFormat outputFormat, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            outputFormat.writeRecord(Row.of(i, "name" + i));
+        }
+    }
+}
@@ -0,0 +1,668 @@
+package starrocks.testing;
+
+import starrocks.StreamLoadResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 进程内的StarRocks Stream Load模拟服务，用于在没有集群和网络的环境下测试吞吐、重试和反压
+ *
+ * <p>FE端口收到/api/{db}/{table}/_stream_load后307重定向到BE端口（可关闭），BE读完请求体后按label去重并返回与StarRocks一致的
+ * 结果JSON。同时提供get_load_state和/api/health。延迟、失败、丢响应、并发限流和脏数据均可在运行中注入，
+ * 最近一次导入的header和行内容可供测试断言。
+ *
+ * <p>只实现连接器用到的接口，不校验表结构，也不实现事务导入接口。
+ */
+public class MockStarRocksServer implements Closeable {
+
+    /** 日志log */
+    private static final Logger LOG = LoggerFactory.getLogger(MockStarRocksServer.class);
+
+    /** 超过并发限制时返回的消息，与StarRocks导入版本过多时一致 */
+    public static final String TOO_MANY_VERSIONS_MESSAGE =
+            "Too many versions. tablet_id: 10001, version_count: 1001, limit: 1000";
+
+    /** label状态：导入中 */
+    public static final String STATE_RUNNING = "RUNNING";
+
+    /** label状态：已生效 */
+    public static final String STATE_VISIBLE = "VISIBLE";
+
+    /** label状态：已中止，可被重用 */
+    public static final String STATE_ABORTED = "ABORTED";
+
+    private static final String STREAM_LOAD_SUFFIX = "/_stream_load";
+
+    private static final String LOAD_STATE_SUFFIX = "/get_load_state";
+
+    private static final String HEALTH_PATH = "/api/health";
+
+    private static final String ERROR_LOG_PATH = "/api/_load_error_log";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpServer frontend;
+
+    private final HttpServer backend;
+
+    private final ExecutorService executor;
+
+    /** 错误日志文件名到内容 */
+    private final Map<String, String> errorLogs = new ConcurrentHashMap<>();
+
+    /** label到导入状态 */
+    private final Map<String, String> labels = new ConcurrentHashMap<>();
+
+    private final AtomicLong txnId = new AtomicLong(1000);
+
+    private final AtomicInteger activeLoads = new AtomicInteger();
+
+    private final AtomicLong loadCount = new AtomicLong();
+
+    private final AtomicLong loadedRows = new AtomicLong();
+
+    private final AtomicLong loadedBytes = new AtomicLong();
+
+    /** 剩余需注入失败的导入数 */
+    private final AtomicInteger failuresRemaining = new AtomicInteger();
+
+    /** 剩余需丢弃响应的导入数 */
+    private final AtomicInteger dropsRemaining = new AtomicInteger();
+
+    /** 剩余需返回503的get_load_state查询数 */
+    private final AtomicInteger stateFailuresRemaining = new AtomicInteger();
+
+    /** 最近一次导入请求的header，key为小写 */
+    private volatile Map<String, String> lastLoadHeaders = Collections.emptyMap();
+
+    /** 最近一次导入请求的各行内容，开启recordRows时收集 */
+    private volatile List<String> lastLoadRows = Collections.emptyList();
+
+    /** 是否收集每次导入的行内容 */
+    private volatile boolean recordRows;
+
+    /** 是否由FE重定向到BE */
+    private volatile boolean redirect = true;
+
+    /** BE返回前的延迟（毫秒） */
+    private volatile long latencyMs;
+
+    /** 同时进行的导入数上限，0为不限制 */
+    private volatile int maxConcurrentLoads;
+
+    /** 注入失败的HTTP状态码，200时按failureStatus和failureMessage返回结果 */
+    private volatile int failureHttpStatus = 200;
+
+    private volatile String failureStatus = StreamLoadResult.STATUS_FAIL;
+
+    private volatile String failureMessage = TOO_MANY_VERSIONS_MESSAGE;
+
+    /** 随机失败概率 */
+    private volatile double failureRate;
+
+    /** 随机失败使用固定种子，保证可复现 */
+    private volatile Random failureRandom = new Random(0);
+
+    /** 包含该内容的行被视为脏数据，为null时不检查 */
+    private volatile String poisonMarker;
+
+    /**
+     * 在本机随机端口启动FE和BE
+     *
+     * @throws IOException
+     */
+    public MockStarRocksServer() throws IOException {
+        this.executor = Executors.newCachedThreadPool();
+        this.frontend = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.backend = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        frontend.createContext("/", exchange -> handle(exchange, true));
+        backend.createContext("/", exchange -> handle(exchange, false));
+        frontend.setExecutor(executor);
+        backend.setExecutor(executor);
+        frontend.start();
+        backend.start();
+    }
+
+    /** FE地址，作为连接器的url */
+    public String getFrontendAddress() {
+        return "127.0.0.1:" + frontend.getAddress().getPort();
+    }
+
+    /** BE地址 */
+    public String getBackendAddress() {
+        return "127.0.0.1:" + backend.getAddress().getPort();
+    }
+
+    public MockStarRocksServer setRedirect(boolean redirect) {
+        this.redirect = redirect;
+        return this;
+    }
+
+    public MockStarRocksServer setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+        return this;
+    }
+
+    /**
+     * 限制同时进行的导入数，超出时返回Too many versions
+     *
+     * @param maxConcurrentLoads 0为不限制
+     * @return
+     */
+    public MockStarRocksServer setMaxConcurrentLoads(int maxConcurrentLoads) {
+        this.maxConcurrentLoads = maxConcurrentLoads;
+        return this;
+    }
+
+    /**
+     * 按固定概率返回Too many versions
+     *
+     * @param failureRate 0到1之间
+     * @param seed 随机种子
+     * @return
+     */
+    public MockStarRocksServer setFailureRate(double failureRate, long seed) {
+        this.failureRandom = new Random(seed);
+        this.failureRate = failureRate;
+        return this;
+    }
+
+    /**
+     * 接下来的若干次导入返回指定HTTP状态码
+     *
+     * @param count
+     * @param httpStatus
+     * @return
+     */
+    public MockStarRocksServer failNextLoads(int count, int httpStatus) {
+        this.failureHttpStatus = httpStatus;
+        this.failuresRemaining.set(count);
+        return this;
+    }
+
+    /**
+     * 接下来的若干次导入返回指定Status和Message，Status为Publish Timeout时数据仍会生效
+     *
+     * @param count
+     * @param status
+     * @param message
+     * @return
+     */
+    public MockStarRocksServer failNextLoads(int count, String status, String message) {
+        this.failureHttpStatus = 200;
+        this.failureStatus = status;
+        this.failureMessage = message;
+        this.failuresRemaining.set(count);
+        return this;
+    }
+
+    /**
+     * 接下来的若干次导入正常生效但不返回响应直接断开连接，模拟响应丢失
+     *
+     * @param count
+     * @return
+     */
+    public MockStarRocksServer dropNextResponses(int count) {
+        this.dropsRemaining.set(count);
+        return this;
+    }
+
+    /**
+     * 包含marker的行视为脏数据，批次中有脏数据时整批返回Fail，并通过ErrorURL提供错误日志，模拟max_filter_ratio为0的表现
+     *
+     * @param marker 为null时不检查
+     * @return
+     */
+    public MockStarRocksServer setPoisonMarker(String marker) {
+        this.poisonMarker = marker;
+        return this;
+    }
+
+    /**
+     * 接下来的若干次get_load_state查询返回503，客户端无法确认label状态，重发时由label去重返回Label Already Exists
+     *
+     * @param count
+     * @return
+     */
+    public MockStarRocksServer failNextStateQueries(int count) {
+        this.stateFailuresRemaining.set(count);
+        return this;
+    }
+
+    /**
+     * 收集每次导入的行内容，通过getLastLoadRows读取
+     *
+     * @param recordRows
+     * @return
+     */
+    public MockStarRocksServer setRecordRows(boolean recordRows) {
+        this.recordRows = recordRows;
+        return this;
+    }
+
+    /**
+     * 最近一次到达BE的导入请求的header
+     *
+     * @param name 不区分大小写
+     * @return 不存在时返回null
+     */
+    public String getLastLoadHeader(String name) {
+        return lastLoadHeaders.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /** 最近一次到达BE的导入请求的各行内容，CSV为一行文本，JSON为一个对象 */
+    public List<String> getLastLoadRows() {
+        return lastLoadRows;
+    }
+
+    /** 已处理的导入请求数，不含重定向和label重复的请求 */
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    /** 已生效的行数 */
+    public long getLoadedRows() {
+        return loadedRows.get();
+    }
+
+    /** 已生效的解压后字节数 */
+    public long getLoadedBytes() {
+        return loadedBytes.get();
+    }
+
+    /**
+     * label的导入状态
+     *
+     * @param label
+     * @return 不存在时返回null
+     */
+    public String getLabelState(String label) {
+        return labels.get(label);
+    }
+
+    /** 所有出现过的label */
+    public Set<String> getLabels() {
+        return Collections.unmodifiableSet(labels.keySet());
+    }
+
+    private void handle(HttpExchange exchange, boolean isFrontend) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith(STREAM_LOAD_SUFFIX)) {
+                if (isFrontend && redirect) {
+                    URI location =
+                            URI.create("http://" + getBackendAddress() + exchange.getRequestURI().toString());
+                    exchange.getResponseHeaders().set("Location", location.toString());
+                    exchange.sendResponseHeaders(307, -1);
+                    return;
+                }
+                handleStreamLoad(exchange);
+            } else if (path.endsWith(LOAD_STATE_SUFFIX)) {
+                handleLoadState(exchange);
+            } else if (ERROR_LOG_PATH.equals(path)) {
+                handleErrorLog(exchange);
+            } else if (HEALTH_PATH.equals(path)) {
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("status", "OK");
+                body.put("msg", "To Be Added");
+                writeJson(exchange, 200, body);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Mock starrocks request {} failed", exchange.getRequestURI(), e);
+            throw e;
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStreamLoad(HttpExchange exchange) throws IOException {
+        final String label = exchange.getRequestHeaders().getFirst("label");
+        final boolean json = "json".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("format"));
+        final long start = System.currentTimeMillis();
+        Map<String, String> headers = new LinkedHashMap<>();
+        exchange.getRequestHeaders()
+                .forEach((name, values) -> headers.put(name.toLowerCase(Locale.ROOT), values.get(0)));
+        lastLoadHeaders = headers;
+
+        final String marker = poisonMarker;
+        final List<String> rowData = marker != null || recordRows ? new ArrayList<>() : null;
+        long[] counts = readBody(exchange, json, rowData);
+        long rows = counts[0];
+        long bytes = counts[1];
+        if (recordRows) {
+            lastLoadRows = Collections.unmodifiableList(rowData);
+        }
+
+        if (label != null) {
+            String existing = labels.putIfAbsent(label, STATE_RUNNING);
+            if (STATE_ABORTED.equals(existing)) {
+                // 已中止的label可以重用
+                labels.put(label, STATE_RUNNING);
+            } else if (existing != null) {
+                Map<String, Object> body = result(label, StreamLoadResult.STATUS_LABEL_ALREADY_EXISTS, rows, bytes, 0);
+                body.put("Message", "Label [" + label + "] has already been used.");
+                body.put(
+                        "ExistingJobStatus",
+                        STATE_VISIBLE.equals(existing) ? StreamLoadResult.EXISTING_JOB_STATUS_FINISHED : existing);
+                writeJson(exchange, 200, body);
+                return;
+            }
+        }
+
+        int active = activeLoads.incrementAndGet();
+        try {
+            sleep(latencyMs);
+            long loadTimeMs = System.currentTimeMillis() - start;
+
+            if (maxConcurrentLoads > 0 && active > maxConcurrentLoads) {
+                abort(label);
+                writeFailure(exchange, label, StreamLoadResult.STATUS_FAIL, TOO_MANY_VERSIONS_MESSAGE, rows, bytes);
+                return;
+            }
+
+            if (marker != null) {
+                List<String> poisoned = new ArrayList<>();
+                for (String row : rowData) {
+                    if (row.contains(marker)) {
+                        poisoned.add(row);
+                    }
+                }
+                if (!poisoned.isEmpty()) {
+                    abort(label);
+                    writeFiltered(exchange, label, poisoned, rows, bytes);
+                    return;
+                }
+            }
+
+            if (failuresRemaining.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0) {
+                if (failureHttpStatus != 200) {
+                    abort(label);
+                    exchange.sendResponseHeaders(failureHttpStatus, -1);
+                    return;
+                }
+                if (StreamLoadResult.STATUS_PUBLISH_TIMEOUT.equals(failureStatus)) {
+                    commit(label, rows, bytes);
+                } else {
+                    abort(label);
+                }
+                writeFailure(exchange, label, failureStatus, failureMessage, rows, bytes);
+                return;
+            }
+
+            if (failureRate > 0 && nextFailure()) {
+                abort(label);
+                writeFailure(exchange, label, StreamLoadResult.STATUS_FAIL, TOO_MANY_VERSIONS_MESSAGE, rows, bytes);
+                return;
+            }
+
+            commit(label, rows, bytes);
+            if (dropsRemaining.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0) {
+                // 不发送响应直接关闭，客户端收到NoHttpResponseException
+                return;
+            }
+
+            Map<String, Object> body = result(label, StreamLoadResult.STATUS_SUCCESS, rows, bytes, loadTimeMs);
+            body.put("Message", "OK");
+            writeJson(exchange, 200, body);
+        } finally {
+            activeLoads.decrementAndGet();
+        }
+    }
+
+    private void handleLoadState(HttpExchange exchange) throws IOException {
+        if (stateFailuresRemaining.getAndUpdate(n -> n > 0 ? n - 1 : 0) > 0) {
+            exchange.sendResponseHeaders(503, -1);
+            return;
+        }
+
+        // 与FE一致，先按&拆分再解码，label中编码后的&和空格不会截断参数
+        String query = exchange.getRequestURI().getRawQuery();
+        String label = null;
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith("label=")) {
+                    label = URLDecoder.decode(pair.substring("label=".length()), "UTF-8");
+                }
+            }
+        }
+
+        String state = label == null ? null : labels.get(label);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", "OK");
+        body.put("msg", "Success");
+        body.put("state", state == null ? "UNKNOWN" : state);
+        writeJson(exchange, 200, body);
+    }
+
+    private void handleErrorLog(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        String log =
+                query != null && query.startsWith("file=") ? errorLogs.get(query.substring("file=".length())) : null;
+        if (log == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+
+        byte[] response = log.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private synchronized boolean nextFailure() {
+        return failureRandom.nextDouble() < failureRate;
+    }
+
+    private void commit(String label, long rows, long bytes) {
+        loadCount.incrementAndGet();
+        loadedRows.addAndGet(rows);
+        loadedBytes.addAndGet(bytes);
+        if (label != null) {
+            labels.put(label, STATE_VISIBLE);
+        }
+    }
+
+    private void abort(String label) {
+        loadCount.incrementAndGet();
+        if (label != null) {
+            labels.put(label, STATE_ABORTED);
+        }
+    }
+
+    private void writeFailure(
+            HttpExchange exchange, String label, String status, String message, long rows, long bytes)
+            throws IOException {
+        Map<String, Object> body = result(label, status, rows, bytes, 0);
+        body.put("Message", message);
+        writeJson(exchange, 200, body);
+    }
+
+    private void writeFiltered(HttpExchange exchange, String label, List<String> poisoned, long rows, long bytes)
+            throws IOException {
+        StringBuilder log = new StringBuilder();
+        for (String row : poisoned) {
+            log.append("Error: Value contains poison marker. Row: ").append(row).append('\n');
+        }
+        String file = "error_log_" + txnId.get() + "_" + label;
+        errorLogs.put(file, log.toString());
+
+        Map<String, Object> body = result(label, StreamLoadResult.STATUS_FAIL, rows, bytes, 0);
+        body.put("NumberFilteredRows", (long) poisoned.size());
+        body.put("Message", "too many filtered rows");
+        body.put("ErrorURL", "http://" + getBackendAddress() + ERROR_LOG_PATH + "?file=" + file);
+        writeJson(exchange, 200, body);
+    }
+
+    private Map<String, Object> result(String label, String status, long rows, long bytes, long loadTimeMs) {
+        boolean success = StreamLoadResult.STATUS_SUCCESS.equals(status);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("TxnId", txnId.incrementAndGet());
+        body.put("Label", label);
+        body.put("Status", status);
+        body.put("NumberTotalRows", rows);
+        body.put("NumberLoadedRows", success ? rows : 0L);
+        body.put("NumberFilteredRows", 0L);
+        body.put("NumberUnselectedRows", 0L);
+        body.put("LoadBytes", bytes);
+        body.put("LoadTimeMs", loadTimeMs);
+        body.put("BeginTxnTimeMs", 0L);
+        body.put("StreamLoadPlanTimeMs", 0L);
+        body.put("ReadDataTimeMs", 0L);
+        body.put("WriteDataTimeMs", loadTimeMs);
+        body.put("CommitAndPublishTimeMs", 0L);
+        return body;
+    }
+
+    private void writeJson(HttpExchange exchange, int status, Map<String, Object> body) throws IOException {
+        byte[] response = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    /**
+     * 读完请求体，按compression header解压后统计行数和字节数
+     *
+     * @param exchange
+     * @param json JSON格式按顶层对象计数，CSV按行计数
+     * @param rowData 不为null时收集每行的内容
+     * @return 行数和解压后字节数
+     * @throws IOException
+     */
+    private long[] readBody(HttpExchange exchange, boolean json, List<String> rowData) throws IOException {
+        String compression = exchange.getRequestHeaders().getFirst("compression");
+        InputStream in = exchange.getRequestBody();
+        if ("GZIP".equalsIgnoreCase(compression)) {
+            in = new GZIPInputStream(in);
+        } else if ("LZ4_FRAME".equalsIgnoreCase(compression)) {
+            in = new LZ4FrameInputStream(in);
+        }
+
+        long rows = 0;
+        long bytes = 0;
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        boolean lineHasData = false;
+        // JSON格式下正在收集的行所在的深度
+        boolean capturing = false;
+        int rowDepth = 0;
+        ByteArrayOutputStream current = new ByteArrayOutputStream();
+        byte[] chunk = new byte[64 * 1024];
+        try (InputStream body = in) {
+            int read;
+            while ((read = body.read(chunk)) != -1) {
+                bytes += read;
+                for (int i = 0; i < read; i++) {
+                    byte b = chunk[i];
+                    if (rowData != null && (json ? capturing : b != '\n')) {
+                        current.write(b);
+                    }
+                    if (!json) {
+                        if (b == '\n') {
+                            if (lineHasData) {
+                                rows++;
+                                collect(rowData, current);
+                            }
+                            lineHasData = false;
+                        } else {
+                            lineHasData = true;
+                        }
+                    } else if (inString) {
+                        if (escaped) {
+                            escaped = false;
+                        } else if (b == '\\') {
+                            escaped = true;
+                        } else if (b == '"') {
+                            inString = false;
+                        }
+                    } else if (b == '"') {
+                        inString = true;
+                    } else if (b == '{' || b == '[') {
+                        // strip_outer_array时数组外层深度为1，其内的对象即一行
+                        if (b == '{' && depth <= 1) {
+                            rows++;
+                            if (rowData != null && !capturing) {
+                                capturing = true;
+                                rowDepth = depth;
+                                current.write(b);
+                            }
+                        }
+                        depth++;
+                    } else if (b == '}' || b == ']') {
+                        depth--;
+                        if (capturing && depth == rowDepth) {
+                            capturing = false;
+                            collect(rowData, current);
+                        }
+                    }
+                }
+            }
+        }
+        if (lineHasData) {
+            rows++;
+            collect(rowData, current);
+        }
+        return new long[] {rows, bytes};
+    }
+
+    private static void collect(List<String> rowData, ByteArrayOutputStream current) {
+        if (rowData != null) {
+            rowData.add(new String(current.toByteArray(), StandardCharsets.UTF_8));
+            current.reset();
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        frontend.stop(0);
+        backend.stop(0);
+        executor.shutdownNow();
+    }
+}